@@ -0,0 +1,223 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import org.huberb.tgftools.TgfCompactGraph.StringIndex;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+
+/**
+ * Hash-consing of structurally identical subtrees of a {@link TgfModel}.
+ * <p>
+ * The signature of a node is its name, and the sorted pairs of label, and
+ * subtree class of its out-edges. Signatures are computed bottom-up by an
+ * iterative depth first search, and interned, so that nodes of equal
+ * signature, i.e. roots of identical subtrees, get the same subtree class.
+ * The first node of a class in model order represents the class.
+ * <p>
+ * A node closing a cycle has no signature when it is finished, thus it gets
+ * a class of its own. So does a node without name, i.e. a node declared by
+ * its id only, or only referenced by edges, as its identity is its id.
+ *
+ * @author berni3
+ */
+public final class TgfCanonicalSubtrees {
+
+    private final TgfModel tgfModel;
+    private final TgfCompactGraph graph;
+    /**
+     * Subtree class of each node of {@link #graph}.
+     */
+    private final int[] classes;
+    /**
+     * Representative node of each subtree class.
+     */
+    private final int[] representatives;
+
+    private TgfCanonicalSubtrees(TgfModel tgfModel, TgfCompactGraph graph, int[] classes, int[] representatives) {
+        this.tgfModel = tgfModel;
+        this.graph = graph;
+        this.classes = classes;
+        this.representatives = representatives;
+    }
+
+    /**
+     * Compute the subtree classes of all nodes of a {@link TgfModel}.
+     *
+     * @param tgfModel
+     * @return
+     */
+    public static TgfCanonicalSubtrees of(TgfModel tgfModel) {
+        final TgfCompactGraph graph = TgfCompactGraph.of(tgfModel);
+        final int n = graph.nodeCount();
+        final StringIndex names = new StringIndex();
+        final HashMap<Signature, Integer> signatures = new HashMap<>();
+        final int[] classes = new int[n];
+        Arrays.fill(classes, -1);
+        int classCount = 0;
+
+        final boolean[] visited = new boolean[n];
+        final int[] stack = new int[n];
+        final int[] nextSlot = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            visited[root] = true;
+            nextSlot[root] = graph.outStart(root);
+            while (top > 0) {
+                final int v = stack[top - 1];
+                if (nextSlot[v] < graph.outEnd(v)) {
+                    final int w = graph.outTarget(nextSlot[v]++);
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        nextSlot[w] = graph.outStart(w);
+                        stack[top++] = w;
+                    }
+                    continue;
+                }
+                top -= 1;
+                final Signature signature = signature(graph, names, classes, v);
+                Integer c = signature == null ? null : signatures.get(signature);
+                if (c == null) {
+                    c = classCount++;
+                    if (signature != null) {
+                        signatures.put(signature, c);
+                    }
+                }
+                classes[v] = c;
+            }
+        }
+        // the first node of a class in model order represents the class
+        final int[] representatives = new int[classCount];
+        Arrays.fill(representatives, -1);
+        for (int v = 0; v < n; v++) {
+            if (representatives[classes[v]] < 0) {
+                representatives[classes[v]] = v;
+            }
+        }
+        return new TgfCanonicalSubtrees(tgfModel, graph, classes, representatives);
+    }
+
+    /**
+     * @return signature of a finished node, or null if the node has no, or
+     * an empty name, or if one of its children is not finished, as it closes a cycle
+     */
+    private static Signature signature(TgfCompactGraph graph, StringIndex names, int[] classes, int v) {
+        final int start = graph.outStart(v);
+        final int degree = graph.outDegree(v);
+        final String name = graph.nodeName(v);
+        if (name == null || name.isEmpty()) {
+            // a node declared by its id only is parsed with an empty name
+            return null;
+        }
+        final long[] key = new long[degree + 1];
+        key[0] = names.add(name);
+        for (int i = 0; i < degree; i++) {
+            final int childClass = classes[graph.outTarget(start + i)];
+            if (childClass < 0) {
+                return null;
+            }
+            // label -1 of an unlabeled edge sets the high word to all ones
+            key[i + 1] = ((long) graph.outLabels[start + i] << 32) | childClass;
+        }
+        Arrays.sort(key, 1, key.length);
+        return new Signature(key);
+    }
+
+    /**
+     * @return number of distinct subtrees
+     */
+    public int subtreeCount() {
+        return representatives.length;
+    }
+
+    /**
+     * @param nodeId
+     * @return id of the node representing the subtree of {@code nodeId},
+     * or null if there is no such node
+     */
+    public String representative(String nodeId) {
+        final int v = graph.nodeIndex(nodeId);
+        return v < 0 ? null : graph.nodeId(representatives[classes[v]]);
+    }
+
+    /**
+     * Create a model sharing identical subtrees.
+     * <p>
+     * The model keeps the representative nodes only. Edges of
+     * representatives are kept in model order, each pointing to the
+     * representative of its target.
+     *
+     * @return
+     */
+    public TgfModel toTgfModel() {
+        final TgfModel canonical = new TgfModel(subtreeCount());
+        canonical.setDeduplicateEdges(tgfModel.isDeduplicatingEdges());
+        for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
+            if (isRepresentative(graph.nodeIndex(tgfNode.id))) {
+                canonical.addNode(tgfNode);
+            }
+        }
+        for (int e = 0; e < tgfModel.tgfEdgeList.size(); e++) {
+            final TgfEdge tgfEdge = tgfModel.tgfEdgeList.get(e);
+            if (isRepresentative(graph.nodeIndex(tgfEdge.from))) {
+                final String to = representative(tgfEdge.to);
+                canonical.addEdge(to.equals(tgfEdge.to) ? tgfEdge : new TgfEdge(tgfEdge.from, to, tgfEdge.label),
+                        tgfModel.multiplicity(e));
+            }
+        }
+        return canonical;
+    }
+
+    private boolean isRepresentative(int v) {
+        return representatives[classes[v]] == v;
+    }
+
+    /**
+     * Interned signature of a subtree.
+     */
+    static final class Signature {
+
+        private final long[] key;
+        private final int hash;
+
+        Signature(long[] key) {
+            this.key = key;
+            this.hash = Arrays.hashCode(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            return Arrays.equals(key, ((Signature) obj).key);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.util.Arrays;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfParser.ITgfParseListener;
+
+/**
+ * Compact, read-only graph of tgf nodes, and edges.
+ * <p>
+ * Nodes are numbered densely {@code 0..nodeCount()-1}, in the order of
+ * their first occurrence. Edges are stored in compressed sparse row form:
+ * the out-edges of node {@code n} occupy the slots
+ * {@code [outStart(n)..outEnd(n))} of the target, and label index arrays,
+ * in file order. In-edges are stored the same way, referring to the out
+ * slot of each edge. Each distinct label is stored once.
+ * <p>
+ * Nodes only referenced by edges have no name, thus {@link #nodeName(int)}
+ * returns null for them.
+ *
+ * @author berni3
+ */
+public final class TgfCompactGraph {
+
+    final String[] nodeIds;
+    final String[] nodeNames;
+    final String[] labels;
+    final int[] outOffsets;
+    final int[] outTargets;
+    final int[] outLabels;
+    final int[] inOffsets;
+    final int[] inSources;
+    /**
+     * Out slot of each in-edge.
+     */
+    final int[] inEdges;
+    private final StringIndex nodeIndex;
+
+    private TgfCompactGraph(StringIndex nodeIndex, String[] nodeNames, String[] labels,
+            int[] outOffsets, int[] outTargets, int[] outLabels,
+            int[] inOffsets, int[] inSources, int[] inEdges) {
+        this.nodeIndex = nodeIndex;
+        this.nodeIds = nodeIndex.keys;
+        this.nodeNames = nodeNames;
+        this.labels = labels;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outLabels = outLabels;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inEdges = inEdges;
+    }
+
+    /**
+     * Create a compact graph of a {@link TgfModel}.
+     *
+     * @param tgfModel
+     * @return
+     */
+    public static TgfCompactGraph of(TgfModel tgfModel) {
+        final Builder builder = new Builder();
+        tgfModel.tgfNodeList.values().forEach(builder::onNode);
+        tgfModel.tgfEdgeList.forEach(builder::onEdge);
+        return builder.build();
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * @param id
+     * @return index of the node {@code id}, or -1 if there is no such node
+     */
+    public int nodeIndex(String id) {
+        return nodeIndex.indexOf(id);
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public String nodeName(int node) {
+        return nodeNames[node];
+    }
+
+    public int outStart(int node) {
+        return outOffsets[node];
+    }
+
+    public int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    public int outDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    /**
+     * @param slot out slot of an edge
+     * @return target node of the edge
+     */
+    public int outTarget(int slot) {
+        return outTargets[slot];
+    }
+
+    /**
+     * @param slot out slot of an edge
+     * @return label of the edge, or null if the edge is unlabeled
+     */
+    public String outLabel(int slot) {
+        return label(outLabels[slot]);
+    }
+
+    public int inStart(int node) {
+        return inOffsets[node];
+    }
+
+    public int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * @param slot in slot of an edge
+     * @return source node of the edge
+     */
+    public int inSource(int slot) {
+        return inSources[slot];
+    }
+
+    /**
+     * @param slot in slot of an edge
+     * @return label of the edge, or null if the edge is unlabeled
+     */
+    public String inLabel(int slot) {
+        return label(outLabels[inEdges[slot]]);
+    }
+
+    private String label(int label) {
+        return label < 0 ? null : labels[label];
+    }
+
+    /**
+     * Builder of a {@link TgfCompactGraph}, receiving nodes, and edges
+     * directly from {@link TgfParser} as {@link ITgfParseListener}.
+     * <p>
+     * Edges are kept in primitive arrays only, no {@link TgfEdge} is
+     * retained. A builder must not be used anymore after {@link #build()}.
+     */
+    public static class Builder implements ITgfParseListener {
+
+        private final StringIndex nodeIndex = new StringIndex();
+        private final StringIndex labelIndex = new StringIndex();
+        private String[] nodeNames = new String[16];
+        private int[] edgeFrom = new int[16];
+        private int[] edgeTo = new int[16];
+        private int[] edgeLabel = new int[16];
+        private int edgeCount;
+
+        @Override
+        public void onNode(TgfNode tgfNode) {
+            final int node = addNode(tgfNode.id);
+            if (nodeNames[node] == null) {
+                // the first node of an id wins, like in TgfModel
+                nodeNames[node] = tgfNode.name;
+            }
+        }
+
+        @Override
+        public void onSectionSeparator() {
+            // noop
+        }
+
+        @Override
+        public void onEdge(TgfEdge tgfEdge) {
+            if (edgeCount == edgeFrom.length) {
+                final int capacity = edgeCount * 2;
+                edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+                edgeTo = Arrays.copyOf(edgeTo, capacity);
+                edgeLabel = Arrays.copyOf(edgeLabel, capacity);
+            }
+            edgeFrom[edgeCount] = addNode(tgfEdge.from);
+            edgeTo[edgeCount] = addNode(tgfEdge.to);
+            edgeLabel[edgeCount] = labelIndex.add(tgfEdge.label);
+            edgeCount += 1;
+        }
+
+        @Override
+        public void onEnd() {
+            // noop
+        }
+
+        private int addNode(String id) {
+            final int node = nodeIndex.add(id);
+            if (node == nodeNames.length) {
+                nodeNames = Arrays.copyOf(nodeNames, node * 2);
+            }
+            return node;
+        }
+
+        /**
+         * Sort the edges into out-, and in-edge rows.
+         *
+         * @return
+         */
+        public TgfCompactGraph build() {
+            final int n = nodeIndex.size;
+            final int[] outOffsets = new int[n + 1];
+            final int[] inOffsets = new int[n + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                outOffsets[edgeFrom[e] + 1] += 1;
+                inOffsets[edgeTo[e] + 1] += 1;
+            }
+            for (int i = 0; i < n; i++) {
+                outOffsets[i + 1] += outOffsets[i];
+                inOffsets[i + 1] += inOffsets[i];
+            }
+            final int[] outTargets = new int[edgeCount];
+            final int[] outLabels = new int[edgeCount];
+            final int[] inSources = new int[edgeCount];
+            final int[] inEdges = new int[edgeCount];
+            final int[] outNext = Arrays.copyOf(outOffsets, n);
+            final int[] inNext = Arrays.copyOf(inOffsets, n);
+            for (int e = 0; e < edgeCount; e++) {
+                final int outSlot = outNext[edgeFrom[e]]++;
+                outTargets[outSlot] = edgeTo[e];
+                outLabels[outSlot] = edgeLabel[e];
+                final int inSlot = inNext[edgeTo[e]]++;
+                inSources[inSlot] = edgeFrom[e];
+                inEdges[inSlot] = outSlot;
+            }
+            nodeIndex.trim();
+            labelIndex.trim();
+            return new TgfCompactGraph(nodeIndex, Arrays.copyOf(nodeNames, n), labelIndex.keys,
+                    outOffsets, outTargets, outLabels,
+                    inOffsets, inSources, inEdges);
+        }
+    }
+
+    /**
+     * Dense numbering of strings, using open addressing over the indexes.
+     * A null string, e.g. the label of an unlabeled edge, is numbered -1.
+     * <p>
+     * Keys are hashed by {@link String#hashCode()}, the hash code of a slot is
+     * kept, so that {@link TgfSymbolTable} can look up keys on the chars of a
+     * {@link TgfScanner} before creating a string.
+     */
+    static final class StringIndex {
+
+        String[] keys = new String[16];
+        int size;
+        /**
+         * Index plus one of the key of a slot, 0 for an empty slot.
+         */
+        private int[] slots = new int[32];
+        /**
+         * Hash code of the key of a slot.
+         */
+        private int[] hashes = new int[32];
+
+        /**
+         * @return index of {@code key}, or -1
+         */
+        int indexOf(String key) {
+            if (key == null) {
+                return -1;
+            }
+            return indexOf(key.hashCode(), key);
+        }
+
+        /**
+         * @return index of {@code key}, adding it if unknown, or -1 for a
+         * null key
+         */
+        int add(String key) {
+            if (key == null) {
+                return -1;
+            }
+            final int h = key.hashCode();
+            final int index = indexOf(h, key);
+            return index != -1 ? index : insert(h, key);
+        }
+
+        /**
+         * @param h hash code of {@code key}
+         * @param key non null key
+         * @return index of {@code key}, or -1
+         */
+        int indexOf(int h, String key) {
+            final int mask = slots.length - 1;
+            for (int i = mix(h) & mask; slots[i] != 0; i = (i + 1) & mask) {
+                if (hashes[i] == h && keys[slots[i] - 1].equals(key)) {
+                    return slots[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Look up the chars {@code [from..to)} of a scanner, which must not
+         * exceed {@link TgfScanner#maxDirectChar()}.
+         *
+         * @param h hash code of the chars
+         * @param scanner
+         * @param from
+         * @param to
+         * @return index of the key equal to the chars, or -1
+         */
+        int indexOf(int h, TgfScanner scanner, int from, int to) {
+            final int mask = slots.length - 1;
+            final int len = to - from;
+            for (int i = mix(h) & mask; slots[i] != 0; i = (i + 1) & mask) {
+                final String key = keys[slots[i] - 1];
+                if (hashes[i] == h && key.length() == len) {
+                    int j = 0;
+                    while (j < len && key.charAt(j) == scanner.charAt(from + j)) {
+                        j++;
+                    }
+                    if (j == len) {
+                        return slots[i] - 1;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Add a non null key, which is not yet known.
+         *
+         * @param h hash code of {@code key}
+         * @param key
+         * @return index of {@code key}
+         */
+        int insert(int h, String key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(16, size * 2));
+            }
+            keys[size] = key;
+            size += 1;
+            if (2 * size > slots.length) {
+                rehash(slots.length * 2);
+            }
+            place(h, size);
+            return size - 1;
+        }
+
+        /**
+         * Shrink the keys to {@link #size}.
+         */
+        void trim() {
+            keys = Arrays.copyOf(keys, size);
+        }
+
+        private void rehash(int capacity) {
+            final int[] oldSlots = slots;
+            final int[] oldHashes = hashes;
+            slots = new int[capacity];
+            hashes = new int[capacity];
+            for (int j = 0; j < oldSlots.length; j++) {
+                if (oldSlots[j] != 0) {
+                    place(oldHashes[j], oldSlots[j]);
+                }
+            }
+        }
+
+        private void place(int h, int slot) {
+            final int mask = slots.length - 1;
+            int i = mix(h) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = slot;
+            hashes[i] = h;
+        }
+
+        /**
+         * Spread the bits of a string hash code, as short strings differ in
+         * the low bits only.
+         */
+        private static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.huberb.tgftools.TgfModel.Partition;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfParser.ITgfParseListener;
+
+/**
+ * Builder of a {@link TgfModel} fed by several threads at once.
+ * <p>
+ * Nodes, and edges are added through {@link Producer}s. Each producer
+ * buffers its records, and is used by one thread at a time, thus adding an
+ * edge takes no lock. The producer hashes its edges for the
+ * {@link TgfModel#fingerprint()} while adding them.
+ * <p>
+ * Node ids are deduplicated in a concurrent map, keeping the lowest
+ * position of the nodes of an id, i.e. producer index, and position within
+ * the producer. Thus the first node of an id in producer order wins, like
+ * in {@link TgfModel}, independent of thread scheduling.
+ * <p>
+ * {@link #freeze()} selects, and hashes the winning nodes of the producers
+ * in parallel, and concatenates the buffers in the order the producers were
+ * created. Thus producers created in file order, e.g. one per parallel
+ * parse chunk, result in the model of a sequential parse. The convenience
+ * methods {@link #node(TgfNode)}, and {@link #edge(TgfEdge)} use one
+ * producer per calling thread.
+ *
+ * @author berni3
+ */
+public class TgfConcurrentModelBuilder {
+
+    private final List<Producer> producers = new ArrayList<>();
+    /**
+     * Lowest position of the nodes of an id, the producer index in the
+     * high, and the position within the producer in the low word.
+     */
+    private final ConcurrentHashMap<String, Long> firstPositions = new ConcurrentHashMap<>();
+    private final ThreadLocal<Producer> threadProducer = ThreadLocal.withInitial(this::producer);
+    private volatile boolean frozen;
+
+    /**
+     * Create a producer, whose records follow the records of all producers
+     * created before.
+     *
+     * @return
+     */
+    public Producer producer() {
+        synchronized (producers) {
+            checkNotFrozen();
+            final Producer producer = new Producer(producers.size());
+            producers.add(producer);
+            return producer;
+        }
+    }
+
+    /**
+     * Add a node using the producer of the calling thread.
+     *
+     * @param tgfNode
+     * @return this builder
+     */
+    public TgfConcurrentModelBuilder node(TgfNode tgfNode) {
+        threadProducer.get().onNode(tgfNode);
+        return this;
+    }
+
+    /**
+     * Add an edge using the producer of the calling thread.
+     *
+     * @param tgfEdge
+     * @return this builder
+     */
+    public TgfConcurrentModelBuilder edge(TgfEdge tgfEdge) {
+        threadProducer.get().onEdge(tgfEdge);
+        return this;
+    }
+
+    /**
+     * Build the frozen model of all producers.
+     * <p>
+     * All producing threads must be done, e.g. joined, before. Adding
+     * anything afterwards throws {@link IllegalStateException}, so does
+     * adding to the model.
+     *
+     * @return
+     */
+    public TgfModel freeze() {
+        final List<Producer> snapshot;
+        synchronized (producers) {
+            frozen = true;
+            snapshot = new ArrayList<>(producers);
+        }
+        snapshot.parallelStream().forEach(Producer::selectNodes);
+        int nodeCount = 0;
+        int edgeCount = 0;
+        for (Producer producer : snapshot) {
+            nodeCount += producer.partition.tgfNodeList.size();
+            edgeCount += producer.partition.tgfEdgeList.size();
+        }
+        final TgfModel tgfModel = new TgfModel(nodeCount);
+        tgfModel.ensureEdgeCapacity(edgeCount);
+        for (Producer producer : snapshot) {
+            tgfModel.append(producer.partition);
+        }
+        tgfModel.freeze();
+        return tgfModel;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Builder is frozen");
+        }
+    }
+
+    /**
+     * Buffer of the records of a single producing thread.
+     */
+    public class Producer implements ITgfParseListener {
+
+        /**
+         * Producer index in the high word of the node positions.
+         */
+        private final long positionBase;
+        private final List<TgfNode> tgfNodeList = new ArrayList<>();
+        private final Partition partition = new Partition();
+
+        private Producer(int index) {
+            this.positionBase = (long) index << 32;
+        }
+
+        @Override
+        public void onNode(TgfNode tgfNode) {
+            checkNotFrozen();
+            firstPositions.merge(tgfNode.id, positionBase | tgfNodeList.size(), Math::min);
+            tgfNodeList.add(tgfNode);
+        }
+
+        @Override
+        public void onSectionSeparator() {
+            // noop
+        }
+
+        @Override
+        public void onEdge(TgfEdge tgfEdge) {
+            checkNotFrozen();
+            partition.addEdge(tgfEdge);
+        }
+
+        @Override
+        public void onEnd() {
+            // noop
+        }
+
+        /**
+         * Move the nodes, which are the first of their id, into the
+         * partition.
+         */
+        private void selectNodes() {
+            for (int i = 0; i < tgfNodeList.size(); i++) {
+                final TgfNode tgfNode = tgfNodeList.get(i);
+                if (firstPositions.get(tgfNode.id) == (positionBase | i)) {
+                    partition.addNode(tgfNode);
+                }
+            }
+            tgfNodeList.clear();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.huberb.tgftools.TgfConverters.ITgfConverterToString;
+import org.huberb.tgftools.TgfConverters.ITgfRecordConverter;
+import org.huberb.tgftools.TgfFlow.Subscriber;
+import org.huberb.tgftools.TgfFlow.Subscription;
+import org.huberb.tgftools.TgfFlow.TgfRecord;
+import org.huberb.tgftools.TgfModel.TgfNode;
+
+/**
+ * {@link Subscriber} converting published tgf records, and appending the
+ * conversion to an {@link Appendable}.
+ * <p>
+ * Converters implementing {@link ITgfRecordConverter} convert each record on
+ * arrival, flushing the converted text in chunks. Other converters, like the
+ * mindmap converter, need the whole graph, thus the records are collected
+ * into a {@link TgfModel}, and converted on completion.
+ * <p>
+ * Records are requested in batches, thus at most a batch of records is
+ * pending between publisher, and this subscriber.
+ *
+ * @author berni3
+ */
+public class TgfConverterSubscriber implements Subscriber<TgfRecord> {
+
+    static final int DEFAULT_BATCH_SIZE = 256;
+    static final int FLUSH_SIZE = 8192;
+
+    private final ITgfConverterToString tgfConverterToString;
+    private final Appendable appendable;
+    private final int batchSize;
+    private final CompletableFuture<Appendable> completion = new CompletableFuture<>();
+
+    private Subscription subscription;
+    private int pending;
+    // state of record conversion
+    private final StringBuilder sb = new StringBuilder();
+    private final Set<String> nodeIds = new HashSet<>();
+    private boolean edgesStarted;
+    private int edgeIndex;
+    // state of model conversion
+    private final TgfModel.Builder tgfModelBuilder = new TgfModel.Builder();
+
+    public TgfConverterSubscriber(ITgfConverterToString tgfConverterToString, Appendable appendable) {
+        this(tgfConverterToString, appendable, DEFAULT_BATCH_SIZE);
+    }
+
+    public TgfConverterSubscriber(ITgfConverterToString tgfConverterToString, Appendable appendable, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("non-positive batch size: " + batchSize);
+        }
+        this.tgfConverterToString = tgfConverterToString;
+        this.appendable = appendable;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return future completed with the {@link Appendable} after the
+     * conversion has been appended, or completed exceptionally on error
+     */
+    public CompletableFuture<Appendable> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        if (tgfConverterToString instanceof ITgfRecordConverter) {
+            ((ITgfRecordConverter) tgfConverterToString).start(sb);
+        }
+        pending = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(TgfRecord tgfRecord) {
+        try {
+            if (tgfConverterToString instanceof ITgfRecordConverter) {
+                convertRecord((ITgfRecordConverter) tgfConverterToString, tgfRecord);
+            } else {
+                collectRecord(tgfRecord);
+            }
+        } catch (RuntimeException ex) {
+            subscription.cancel();
+            completion.completeExceptionally(ex);
+            return;
+        }
+        pending -= 1;
+        if (pending == 0) {
+            pending = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            if (tgfConverterToString instanceof ITgfRecordConverter) {
+                final ITgfRecordConverter tgfRecordConverter = (ITgfRecordConverter) tgfConverterToString;
+                if (!edgesStarted) {
+                    edgesStarted = true;
+                    tgfRecordConverter.edgesStart(sb);
+                }
+                tgfRecordConverter.end(sb);
+            } else {
+                sb.append(tgfConverterToString.convert(tgfModelBuilder.build()));
+            }
+            flush();
+            completion.complete(appendable);
+        } catch (RuntimeException ex) {
+            completion.completeExceptionally(ex);
+        }
+    }
+
+    private void convertRecord(ITgfRecordConverter tgfRecordConverter, TgfRecord tgfRecord) {
+        switch (tgfRecord.getKind()) {
+            case node: {
+                final TgfNode tgfNode = tgfRecord.getTgfNode();
+                // the first node of an id wins, like in TgfModel
+                final int nodeIndex = nodeIds.size();
+                if (nodeIds.add(tgfNode.id)) {
+                    tgfRecordConverter.node(sb, nodeIndex, tgfNode);
+                }
+                break;
+            }
+            case sectionSeparator:
+                if (!edgesStarted) {
+                    edgesStarted = true;
+                    tgfRecordConverter.edgesStart(sb);
+                }
+                break;
+            case edge:
+                tgfRecordConverter.edge(sb, edgeIndex, tgfRecord.getTgfEdge());
+                edgeIndex += 1;
+                break;
+            default:
+                break;
+        }
+        if (sb.length() >= FLUSH_SIZE) {
+            flush();
+        }
+    }
+
+    private void collectRecord(TgfRecord tgfRecord) {
+        switch (tgfRecord.getKind()) {
+            case node:
+                tgfModelBuilder.node(tgfRecord.getTgfNode());
+                break;
+            case edge:
+                tgfModelBuilder.edge(tgfRecord.getTgfEdge());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void flush() {
+        try {
+            appendable.append(sb);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        sb.setLength(0);
+    }
+}
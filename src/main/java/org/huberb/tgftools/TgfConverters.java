@@ -17,7 +17,6 @@ package org.huberb.tgftools;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.huberb.tgftools.TgfModel.TgfEdge;
 import org.huberb.tgftools.TgfModel.TgfNode;
 
@@ -34,37 +33,118 @@ public class TgfConverters {
     }
 
     /**
-     * Converts {@link TgfModel} to puml node diagram
+     * Converter of single tgf records.
+     * <p>
+     * A conversion calls {@link #start(StringBuilder)}, then
+     * {@link #node(StringBuilder, int, TgfNode)} for each node,
+     * {@link #edgesStart(StringBuilder)} exactly once,
+     * {@link #edge(StringBuilder, int, TgfEdge, int)} for each edge, and
+     * finally {@link #end(StringBuilder)}. Thus records can be converted
+     * while they are parsed, without a {@link TgfModel}.
      */
-    public static class PumlNodeConverter implements ITgfConverterToString {
+    public interface ITgfRecordConverter {
 
-        final String umlTgfNodeElement = "node";
+        void start(StringBuilder sb);
+
+        void node(StringBuilder sb, int nodeIndex, TgfNode tgfNode);
+
+        void edgesStart(StringBuilder sb);
+
+        void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge);
 
         /**
-         * Convert {@link TgfModel} to plant uml.
+         * Convert an edge, which was added {@code multiplicity} times to a
+         * model deduplicating edges.
+         * <p>
+         * The default ignores the multiplicity.
          *
-         * @param tgfModel
-         * @return
+         * @param sb
+         * @param edgeIndex
+         * @param tgfEdge
+         * @param multiplicity
+         * @see TgfModel#multiplicity(int)
          */
+        default void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge, int multiplicity) {
+            edge(sb, edgeIndex, tgfEdge);
+        }
+
+        void end(StringBuilder sb);
+    }
+
+    /**
+     * Converts {@link TgfModel} by converting its records.
+     */
+    abstract static class AbstractTgfRecordConverter implements ITgfConverterToString, ITgfRecordConverter {
+
+        @Override
         public String convert(TgfModel tgfModel) {
             final StringBuilder sb = new StringBuilder();
+            start(sb);
+            int nodeIndex = 0;
+            for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
+                node(sb, nodeIndex, tgfNode);
+                nodeIndex += 1;
+            }
+            edgesStart(sb);
+            int edgeIndex = 0;
+            for (TgfEdge tgfEdge : tgfModel.tgfEdgeList) {
+                edge(sb, edgeIndex, tgfEdge, tgfModel.multiplicity(edgeIndex));
+                edgeIndex += 1;
+            }
+            end(sb);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Converts {@link TgfModel} to puml node diagram
+     */
+    public static class PumlNodeConverter extends AbstractTgfRecordConverter {
+
+        final String umlTgfNodeElement = "node";
+
+        @Override
+        public void start(StringBuilder sb) {
             sb.append(String.format("@startuml%n%n"));
             // nodes
             sb.append(String.format("' nodes%n"));
-            tgfModel.tgfNodeList.values().forEach(tgfNode -> {
-                sb.append(String.format("%s \"%s\" as %s%n", umlTgfNodeElement, tgfNode.name, tgfNode.id));
-            });
-            // edges
+        }
+
+        @Override
+        public void node(StringBuilder sb, int nodeIndex, TgfNode tgfNode) {
+            sb.append(String.format("%s \"%s\" as %s%n", umlTgfNodeElement, tgfNode.name, tgfNode.id));
+        }
+
+        @Override
+        public void edgesStart(StringBuilder sb) {
             sb.append(String.format("' edges%n"));
-            tgfModel.tgfEdgeList.forEach(tgfEdge -> {
-                if (stringIsBlank(tgfEdge.label)) {
-                    sb.append(String.format("%s --> %s%n", tgfEdge.from, tgfEdge.to));
-                } else {
-                    sb.append(String.format("%s --> %s : %s%n", tgfEdge.from, tgfEdge.to, tgfEdge.label));
-                }
-            });
+        }
+
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge) {
+            edge(sb, edgeIndex, tgfEdge, 1);
+        }
+
+        /**
+         * Append the multiplicity as {@code x<multiplicity>} to the edge
+         * label, if the edge was added more than once.
+         */
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge, int multiplicity) {
+            String label = stringIsBlank(tgfEdge.label) ? null : tgfEdge.label;
+            if (multiplicity > 1) {
+                label = (label == null ? "" : label + " ") + "x" + multiplicity;
+            }
+            if (label == null) {
+                sb.append(String.format("%s --> %s%n", tgfEdge.from, tgfEdge.to));
+            } else {
+                sb.append(String.format("%s --> %s : %s%n", tgfEdge.from, tgfEdge.to, label));
+            }
+        }
+
+        @Override
+        public void end(StringBuilder sb) {
             sb.append(String.format("%n@enduml%n"));
-            return sb.toString();
         }
     }
 
@@ -91,17 +171,61 @@ public class TgfConverters {
 
     /**
      * Converts {@link TgfModel} to puml mindmap or wbs diagram
+     * <p>
+     * The diagram is a depth first spanning tree of the model below a
+     * virtual root, whose depths are the levels of
+     * {@link TgfModelToLevelMapping#calculateLevels(TgfCompactGraph)}. Nodes
+     * of level 1 are children of the root, in model order. Any other node is
+     * expanded once, below the first node one level above it having an edge
+     * to it. Any other occurrence, e.g. a shared dependency, an edge skipping
+     * levels, or an edge closing a cycle, is emitted as a reference without
+     * children. Thus the diagram has one line per node, and edge at most.
+     * <p>
+     * If the model deduplicates edges, a node reached by an edge of
+     * multiplicity greater than 1 is suffixed by {@code x<multiplicity>}.
+     * <p>
+     * Nodes only referenced by edges are part of the tree, and are emitted
+     * by their id only, as skipping them would cut off the nodes below
+     * them. Formerly such nodes were not emitted.
+     * <p>
+     * The depth first search uses an explicit stack, and stops after
+     * {@link #budget} expanded nodes.
      */
     abstract static class PumlMindmapWbsConverter implements ITgfConverterToString {
 
+        /**
+         * Suffix of a node expanded at another place of the diagram.
+         */
+        static final String REFERENCE_MARKER = "(reference)";
+        /**
+         * Line replacing the children not expanded due to the budget.
+         */
+        static final String TRUNCATED_MARKER = "...";
+
         private final String startElement;
         private final String endElement;
+        /**
+         * Maximum number of expanded nodes.
+         */
+        private int budget = Integer.MAX_VALUE;
 
         public PumlMindmapWbsConverter(String startElement, String endElement) {
             this.startElement = startElement;
             this.endElement = endElement;
         }
 
+        /**
+         * Set the maximum number of expanded nodes, unlimited by default.
+         *
+         * @param budget
+         */
+        public void setBudget(int budget) {
+            if (budget < 0) {
+                throw new IllegalArgumentException("Negative budget " + budget);
+            }
+            this.budget = budget;
+        }
+
         /**
          * Convert {@link TgfModel} to plant uml mindmap.
          *
@@ -111,35 +235,98 @@ public class TgfConverters {
         @Override
         public String convert(TgfModel tgfModel) {
             final TgfModelToLevelMapping tgfModelToLevelMapping = new TgfModelToLevelMapping(tgfModel);
-            final Map<String, Integer> m = tgfModelToLevelMapping.calculateNodeLevel();
+            final TgfCompactGraph graph = tgfModelToLevelMapping.graph;
+            final int[] levels = TgfModelToLevelMapping.calculateLevels(graph);
+            final int n = graph.nodeCount();
+            final int[] slotMultiplicities = tgfModel.isDeduplicatingEdges()
+                    ? slotMultiplicities(tgfModel, graph) : null;
 
             final StringBuilder sb = new StringBuilder();
             sb.append(String.format("%s%n%n", startElement));
 
             sb.append(String.format("%s%n", "* root"));
 
-            m.entrySet().stream()
-                    .sorted((e1, e2) -> e1.getValue().compareTo(e2.getValue()))
-                    .forEach((Entry<String, Integer> e) -> {
-                        TgfNode tgfNodeOpt = tgfModel.tgfNodeList.get(e.getKey());
-                        if (tgfNodeOpt != null) {
-                            final TgfNode tgfNodeFount = tgfNodeOpt;
-                            final Integer level = m.getOrDefault(tgfNodeFount.id, -1);
-                            if (level > 0) {
-                                final String levelAsStringBuilder = levelStars(level + 1);
-                                sb.append(String.format("%s %s %s%n",
-                                        levelAsStringBuilder,
-                                        tgfNodeFount.id,
-                                        tgfNodeFount.name)
-                                );
-                            }
+            final boolean[] expanded = new boolean[n];
+            // stack of expanded nodes, and the slot of their next out-edge
+            final int[] stackNodes = new int[n];
+            final int[] stackSlots = new int[n];
+            int expandedCount = 0;
+            boolean truncated = false;
+            for (int root = 0; root < n && !truncated; root++) {
+                if (levels[root] != 1) {
+                    continue;
+                }
+                int top = 0;
+                int v = root;
+                // out slot of the edge v was reached by
+                int slot = -1;
+                while (v >= 0) {
+                    // line of v at level top + 1
+                    final String levelAsString = levelStars(top + 2);
+                    final int multiplicity = slot >= 0 && slotMultiplicities != null ? slotMultiplicities[slot] : 1;
+                    if (expanded[v] || levels[v] != top + 1) {
+                        appendNode(sb, levelAsString, graph, v, multiplicity, REFERENCE_MARKER);
+                    } else if (expandedCount == budget) {
+                        sb.append(String.format("%s %s%n", levelAsString, TRUNCATED_MARKER));
+                        truncated = true;
+                        break;
+                    } else {
+                        appendNode(sb, levelAsString, graph, v, multiplicity, null);
+                        expanded[v] = true;
+                        expandedCount += 1;
+                        stackNodes[top] = v;
+                        stackSlots[top] = graph.outStart(v);
+                        top += 1;
+                    }
+                    // next child of the deepest node having one
+                    v = -1;
+                    while (top > 0 && v < 0) {
+                        final int u = stackNodes[top - 1];
+                        if (stackSlots[top - 1] < graph.outEnd(u)) {
+                            slot = stackSlots[top - 1]++;
+                            v = graph.outTarget(slot);
+                        } else {
+                            top -= 1;
                         }
                     }
-                    );
+                }
+            }
             sb.append(String.format("%n%s%n", endElement));
             return sb.toString();
         }
 
+        /**
+         * @return multiplicity of the edge of each out slot of
+         * {@code graph}, whose out slots are in model order
+         */
+        private static int[] slotMultiplicities(TgfModel tgfModel, TgfCompactGraph graph) {
+            final int[] slotMultiplicities = new int[graph.edgeCount()];
+            final int[] nextSlots = new int[graph.nodeCount()];
+            for (int v = 0; v < nextSlots.length; v++) {
+                nextSlots[v] = graph.outStart(v);
+            }
+            for (int e = 0; e < tgfModel.tgfEdgeList.size(); e++) {
+                final int from = graph.nodeIndex(tgfModel.tgfEdgeList.get(e).from);
+                slotMultiplicities[nextSlots[from]++] = tgfModel.multiplicity(e);
+            }
+            return slotMultiplicities;
+        }
+
+        private void appendNode(StringBuilder sb, String levelAsString, TgfCompactGraph graph, int v, int multiplicity, String marker) {
+            sb.append(levelAsString).append(' ').append(graph.nodeId(v));
+            final String name = graph.nodeName(v);
+            if (name != null) {
+                sb.append(' ').append(name);
+            }
+            if (multiplicity > 1) {
+                sb.append(" x").append(multiplicity);
+            }
+            if (marker != null) {
+                sb.append(' ').append(marker);
+            }
+            sb.append(String.format("%n"));
+        }
+
         protected String levelStars(int level) {
             final StringBuilder levelAsStringBuilder = new StringBuilder();
             for (int i = 1; i <= level; i++) {
@@ -152,127 +339,172 @@ public class TgfConverters {
     /**
      * Converts {@link TgfModel} to csv
      */
-    public static class CsvConverter implements ITgfConverterToString {
+    public static class CsvConverter extends AbstractTgfRecordConverter {
 
         /**
-         * Convert {@link TgfModel} to csv.
+         * Whether a column {@code count} holds the multiplicity of the
+         * edges.
+         */
+        boolean countColumn;
+
+        /**
+         * Convert, adding a column {@code count} if the model deduplicates
+         * edges.
          *
          * @param tgfModel
          * @return
          */
+        @Override
         public String convert(TgfModel tgfModel) {
-            final StringBuilder sb = new StringBuilder();
-            sb.append(String.format("\"type\",\"id_from\",\"name_to\",\"label\"%n"));
-            // nodes
-            tgfModel.tgfNodeList.values().forEach(tgfNode -> {
-                sb.append(String.format("\"node\","
-                        + "\"%s\","
-                        + "\"%s\","
-                        + "\"\"%n", tgfNode.id, tgfNode.name));
-            });
-            // edges
-            tgfModel.tgfEdgeList.forEach(tgfEdge -> {
-                sb.append(String.format("\"edge\","
-                        + "\"%s\","
-                        + "\"%s\","
-                        + "\"%s\"%n", tgfEdge.from, tgfEdge.to, tgfEdge.label));
-            });
-            return sb.toString();
+            this.countColumn = tgfModel.isDeduplicatingEdges();
+            return super.convert(tgfModel);
+        }
+
+        @Override
+        public void start(StringBuilder sb) {
+            sb.append(String.format("\"type\",\"id_from\",\"name_to\",\"label\"%s%n",
+                    countColumn ? ",\"count\"" : ""));
+        }
+
+        @Override
+        public void node(StringBuilder sb, int nodeIndex, TgfNode tgfNode) {
+            sb.append(String.format("\"node\","
+                    + "\"%s\","
+                    + "\"%s\","
+                    + "\"\"%s%n", tgfNode.id, tgfNode.name, countColumn ? ",\"\"" : ""));
+        }
+
+        @Override
+        public void edgesStart(StringBuilder sb) {
+        }
+
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge) {
+            edge(sb, edgeIndex, tgfEdge, 1);
+        }
+
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge, int multiplicity) {
+            sb.append(String.format("\"edge\","
+                    + "\"%s\","
+                    + "\"%s\","
+                    + "\"%s\"%s%n", tgfEdge.from, tgfEdge.to, tgfEdge.label,
+                    countColumn ? ",\"" + multiplicity + "\"" : ""));
+        }
+
+        @Override
+        public void end(StringBuilder sb) {
         }
     }
 
     /**
      * Converts {@link TgfModel} to json
      */
-    public static class JsonConverter implements ITgfConverterToString {
+    public static class JsonConverter extends AbstractTgfRecordConverter {
 
-        /**
-         * Convert {@link TgfModel} to json.
-         *
-         * @param tgfModel
-         * @return
-         */
         @Override
-        public String convert(TgfModel tgfModel) {
-            final StringBuilder sb = new StringBuilder();
+        public void start(StringBuilder sb) {
             sb.append(String.format("{%n"));
             // nodes
             sb.append(String.format("\"nodes\": [%n"));
-            {
-                int i = 0;
-                for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
-                    if (i > 0) {
-                        sb.append(String.format(",%n"));
-                    }
-                    sb.append(String.format("{"
-                            + "\"id\":\"%s\","
-                            + "\"name\":\"%s\""
-                            + "}", tgfNode.id, tgfNode.name));
-                    i += 1;
-                }
+        }
+
+        @Override
+        public void node(StringBuilder sb, int nodeIndex, TgfNode tgfNode) {
+            if (nodeIndex > 0) {
+                sb.append(String.format(",%n"));
             }
+            sb.append(String.format("{"
+                    + "\"id\":\"%s\","
+                    + "\"name\":\"%s\""
+                    + "}", tgfNode.id, tgfNode.name));
+        }
+
+        @Override
+        public void edgesStart(StringBuilder sb) {
             sb.append(String.format("%n],%n"));
             // edges
             sb.append(String.format("\"edges\": [%n"));
-            {
-                int i = 0;
-                for (TgfEdge tgfEdge : tgfModel.tgfEdgeList) {
-                    if (i > 0) {
-                        sb.append(String.format(",%n"));
-                    }
-                    sb.append(String.format("{"
-                            + "\"from\":\"%s\","
-                            + "\"to\":\"%s\","
-                            + "\"label\":\"%s\""
-                            + "}", tgfEdge.from, tgfEdge.to, tgfEdge.label));
-                    i += 1;
-                }
+        }
+
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge) {
+            edge(sb, edgeIndex, tgfEdge, 1);
+        }
+
+        /**
+         * Add a property {@code count}, if the edge was added more than
+         * once.
+         */
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge, int multiplicity) {
+            if (edgeIndex > 0) {
+                sb.append(String.format(",%n"));
             }
+            sb.append(String.format("{"
+                    + "\"from\":\"%s\","
+                    + "\"to\":\"%s\","
+                    + "\"label\":\"%s\""
+                    + "%s}", tgfEdge.from, tgfEdge.to, tgfEdge.label,
+                    multiplicity > 1 ? ",\"count\":" + multiplicity : ""));
+        }
+
+        @Override
+        public void end(StringBuilder sb) {
             sb.append(String.format("%n]%n"));
             sb.append(String.format("}%n"));
-            return sb.toString();
         }
     }
 
     /**
      * Converts {@link TgfModel} to yaml
      */
-    public static class YamlConverter implements ITgfConverterToString {
+    public static class YamlConverter extends AbstractTgfRecordConverter {
 
-        /**
-         * Convert {@link TgfModel} to json.
-         *
-         * @param tgfModel
-         * @return
-         */
         @Override
-        public String convert(TgfModel tgfModel) {
-            final StringBuilder sb = new StringBuilder();
+        public void start(StringBuilder sb) {
             sb.append(String.format("" + "## YAML Template.%n" + "---%n"));
             // nodes
             sb.append(String.format("nodes:%n"));
-            {
-                for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
-                    sb.append(String.format("  -%n"));
-                    sb.append(String.format(""
-                            + "    id: \"%s\"%n"
-                            + "    name: \"%s\"%n"
-                            + "", tgfNode.id, tgfNode.name));
-                }
-            }
-            // edges
+        }
+
+        @Override
+        public void node(StringBuilder sb, int nodeIndex, TgfNode tgfNode) {
+            sb.append(String.format("  -%n"));
+            sb.append(String.format(""
+                    + "    id: \"%s\"%n"
+                    + "    name: \"%s\"%n"
+                    + "", tgfNode.id, tgfNode.name));
+        }
+
+        @Override
+        public void edgesStart(StringBuilder sb) {
             sb.append(String.format("edges:%n"));
-            {
-                for (TgfEdge tgfEdge : tgfModel.tgfEdgeList) {
-                    sb.append(String.format("  -%n"));
-                    sb.append(String.format(""
-                            + "    from: \"%s\"%n"
-                            + "    to: \"%s\"%n"
-                            + "    label: \"%s\"%n"
-                            + "", tgfEdge.from, tgfEdge.to, tgfEdge.label));
-                }
+        }
+
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge) {
+            edge(sb, edgeIndex, tgfEdge, 1);
+        }
+
+        /**
+         * Add a key {@code count}, if the edge was added more than once.
+         */
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge, int multiplicity) {
+            sb.append(String.format("  -%n"));
+            sb.append(String.format(""
+                    + "    from: \"%s\"%n"
+                    + "    to: \"%s\"%n"
+                    + "    label: \"%s\"%n"
+                    + "", tgfEdge.from, tgfEdge.to, tgfEdge.label));
+            if (multiplicity > 1) {
+                sb.append(String.format("    count: %d%n", multiplicity));
             }
-            return sb.toString();
+        }
+
+        @Override
+        public void end(StringBuilder sb) {
         }
     }
 
@@ -287,114 +519,202 @@ public class TgfConverters {
     static class TgfModelToLevelMapping {
 
         final TgfModel tgfModel;
+        final TgfCompactGraph graph;
 
         public TgfModelToLevelMapping(TgfModel tgfModel) {
 
             this.tgfModel = tgfModel;
+            this.graph = TgfCompactGraph.of(tgfModel);
         }
 
+        /**
+         * Calculate the level of each node below a virtual root of level 0.
+         *
+         * @return level of the root {@code @root@}, and of each node of the
+         * model, in model order
+         * @see #calculateLevels(TgfCompactGraph)
+         */
         Map<String, Integer> calculateNodeLevel() {
+            final int[] levels = calculateLevels(graph);
             final Map<String, Integer> tgfNodeLevelMap = new LinkedHashMap<>();
 
             final TgfNode root = new TgfNode("@root@", "@root@");
             tgfNodeLevelMap.put(root.id, 0);
             for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
-                tgfNodeLevelMap.put(tgfNode.id, 1);
+                tgfNodeLevelMap.put(tgfNode.id, levels[graph.nodeIndex(tgfNode.id)]);
             }
-            for (TgfEdge tgfEdge : tgfModel.tgfEdgeList) {
-                final String fromNodeId = tgfEdge.from;
-                final String toNodeId = tgfEdge.to;
-                final Integer fromNodeLevel = tgfNodeLevelMap.get(fromNodeId);
-                final Integer toNodeLevel = tgfNodeLevelMap.get(toNodeId);
-
-                final Integer newToNodeLevel = fromNodeLevel + 1;
-                if (newToNodeLevel > toNodeLevel) {
-                    tgfNodeLevelMap.put(toNodeId, newToNodeLevel);
+            return tgfNodeLevelMap;
+        }
+
+        /**
+         * Calculate the level of each node by longest path layering.
+         * <p>
+         * Nodes without in-edges get level 1, any other node one more than
+         * the largest level of its sources. Nodes are swept in topological
+         * order by Kahn's algorithm, thus levels do not depend on edge order.
+         * If the sweep stalls at a cycle, the unswept node of lowest index
+         * is swept, ignoring its in-edges from unswept nodes. Thus each
+         * node, and edge is handled once, and cycles are contained.
+         *
+         * @param graph
+         * @return level of each node, by node index of {@code graph}
+         */
+        static int[] calculateLevels(TgfCompactGraph graph) {
+            final int n = graph.nodeCount();
+            final int[] levels = new int[n];
+            final int[] inDegrees = new int[n];
+            for (int v = 0; v < n; v++) {
+                levels[v] = 1;
+                inDegrees[v] = graph.inDegree(v);
+            }
+            final int[] queue = new int[n];
+            int head = 0;
+            int tail = 0;
+            for (int v = 0; v < n; v++) {
+                if (inDegrees[v] == 0) {
+                    queue[tail++] = v;
                 }
             }
-            return tgfNodeLevelMap;
+            // nodes are queued once their in-degree drops to 0
+            int lowestUnswept = 0;
+            while (head < n) {
+                if (head == tail) {
+                    // cycle, sweep the unqueued node of lowest index
+                    while (inDegrees[lowestUnswept] == 0) {
+                        lowestUnswept++;
+                    }
+                    inDegrees[lowestUnswept] = 0;
+                    queue[tail++] = lowestUnswept;
+                }
+                final int v = queue[head++];
+                for (int slot = graph.outStart(v); slot < graph.outEnd(v); slot++) {
+                    final int w = graph.outTarget(slot);
+                    if (inDegrees[w] > 0) {
+                        levels[w] = Math.max(levels[w], levels[v] + 1);
+                        inDegrees[w] -= 1;
+                        if (inDegrees[w] == 0) {
+                            queue[tail++] = w;
+                        }
+                    }
+                }
+            }
+            return levels;
         }
     }
 
     /**
      * Converts {@link TgfModel} to datalog format.
      */
-    public static class DatalogValueSchemaConverter implements ITgfConverterToString {
+    public static class DatalogValueSchemaConverter extends AbstractTgfRecordConverter {
 
         final String predicateNode = "node";
         final String predicateEdge = "edge";
         final String predicateEdgeLabel = "edgeLabel";
+        final String predicateEdgeCount = "edgeCount";
 
-        /**
-         * Convert {@link TgfModel} to plant datalog property value.
-         *
-         * @param tgfModel
-         * @return
-         */
-        public String convert(TgfModel tgfModel) {
-            final StringBuilder sb = new StringBuilder();
+        @Override
+        public void start(StringBuilder sb) {
             sb.append(String.format("%% start%n%n"));
             // nodes
             sb.append(String.format("%% nodes%n"));
-            tgfModel.tgfNodeList.values().forEach(tgfNode -> {
-                sb.append(String.format("%s(\"%s\",\"%s\").%n", predicateNode, tgfNode.id, tgfNode.name));
-            });
-            // edges
+        }
+
+        @Override
+        public void node(StringBuilder sb, int nodeIndex, TgfNode tgfNode) {
+            sb.append(String.format("%s(\"%s\",\"%s\").%n", predicateNode, tgfNode.id, tgfNode.name));
+        }
+
+        @Override
+        public void edgesStart(StringBuilder sb) {
             sb.append(String.format("%% edges%n"));
-            tgfModel.tgfEdgeList.forEach(tgfEdge -> {
-                if (stringIsBlank(tgfEdge.label)) {
-                    sb.append(String.format("%s(\"%s\", \"%s\").%n", predicateEdge, tgfEdge.from, tgfEdge.to));
-                } else {
-                     sb.append(String.format("%s(\"%s\", \"%s\").%n", predicateEdge, tgfEdge.from, tgfEdge.to));
-                    sb.append(String.format("%s(\"%s\", \"%s\", \"%s\").%n", predicateEdgeLabel, tgfEdge.from, tgfEdge.to, tgfEdge.label));
-                }
-            });
-             sb.append(String.format("%n%% end%n"));
-            return sb.toString();
+        }
+
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge) {
+            if (stringIsBlank(tgfEdge.label)) {
+                sb.append(String.format("%s(\"%s\", \"%s\").%n", predicateEdge, tgfEdge.from, tgfEdge.to));
+            } else {
+                sb.append(String.format("%s(\"%s\", \"%s\").%n", predicateEdge, tgfEdge.from, tgfEdge.to));
+                sb.append(String.format("%s(\"%s\", \"%s\", \"%s\").%n", predicateEdgeLabel, tgfEdge.from, tgfEdge.to, tgfEdge.label));
+            }
+        }
+
+        /**
+         * Add a fact {@code edgeCount(from, to, label, count)}, if the edge
+         * was added more than once.
+         */
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge, int multiplicity) {
+            edge(sb, edgeIndex, tgfEdge);
+            if (multiplicity > 1) {
+                sb.append(String.format("%s(\"%s\", \"%s\", \"%s\", %d).%n", predicateEdgeCount,
+                        tgfEdge.from, tgfEdge.to, stringIsBlank(tgfEdge.label) ? "" : tgfEdge.label, multiplicity));
+            }
+        }
+
+        @Override
+        public void end(StringBuilder sb) {
+            sb.append(String.format("%n%% end%n"));
         }
     }
 
     /**
      * Converts {@link TgfModel} to datalog format.
      */
-    public static class DatalogPropertySchemaConverter implements ITgfConverterToString {
+    public static class DatalogPropertySchemaConverter extends AbstractTgfRecordConverter {
 
         final String predicateData = "tgfdata";
 
-        /**
-         * Convert {@link TgfModel} to plant datalog property value.
-         *
-         * @param tgfModel
-         * @return
-         */
-        public String convert(TgfModel tgfModel) {
-            final StringBuilder sb = new StringBuilder();
+        @Override
+        public void start(StringBuilder sb) {
             sb.append(String.format("%% start%n%n"));
             // nodes
             sb.append(String.format("%% nodes%n"));
-            tgfModel.tgfNodeList.values().forEach(tgfNode -> {
-                sb.append(String.format("%s(\"%s\", instanceof, \"%s\").%n", predicateData, tgfNode.id, "node"));
-                sb.append(String.format("%s(\"%s\", name, \"%s\").%n", predicateData, tgfNode.id, tgfNode.name));
+        }
 
-            });
-            // edges
+        @Override
+        public void node(StringBuilder sb, int nodeIndex, TgfNode tgfNode) {
+            sb.append(String.format("%s(\"%s\", instanceof, \"%s\").%n", predicateData, tgfNode.id, "node"));
+            sb.append(String.format("%s(\"%s\", name, \"%s\").%n", predicateData, tgfNode.id, tgfNode.name));
+        }
+
+        @Override
+        public void edgesStart(StringBuilder sb) {
             sb.append(String.format("%% edges%n"));
-            tgfModel.tgfEdgeList.forEach(tgfEdge -> {
-                sb.append(String.format("%s(\"%s\", edge, \"%s\").%n", predicateData, tgfEdge.from, tgfEdge.to));
-                String edgeId = tgfEdge.from + "-" + tgfEdge.to;
-                if (stringIsBlank(tgfEdge.label)) {
-                    sb.append(String.format("%s(\"%s\", instanceof, \"%s\").%n", predicateData, edgeId, "edge"));
-                    sb.append(String.format("%s(\"%s\", from, \"%s\").%n", predicateData, edgeId, tgfEdge.from));
-                    sb.append(String.format("%s(\"%s\", to, \"%s\").%n", predicateData, edgeId, tgfEdge.to));
-                } else {
-                    sb.append(String.format("%s(\"%s\", instanceof, \"%s\").%n", predicateData, edgeId, "edge"));
-                    sb.append(String.format("%s(\"%s\", from, \"%s\").%n", predicateData, edgeId, tgfEdge.from));
-                    sb.append(String.format("%s(\"%s\", to, \"%s\").%n", predicateData, edgeId, tgfEdge.to));
-                    sb.append(String.format("%s(\"%s\", label, \"%s\").%n", predicateData, edgeId, tgfEdge.label));
-                }
-            });
+        }
+
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge) {
+            sb.append(String.format("%s(\"%s\", edge, \"%s\").%n", predicateData, tgfEdge.from, tgfEdge.to));
+            String edgeId = tgfEdge.from + "-" + tgfEdge.to;
+            if (stringIsBlank(tgfEdge.label)) {
+                sb.append(String.format("%s(\"%s\", instanceof, \"%s\").%n", predicateData, edgeId, "edge"));
+                sb.append(String.format("%s(\"%s\", from, \"%s\").%n", predicateData, edgeId, tgfEdge.from));
+                sb.append(String.format("%s(\"%s\", to, \"%s\").%n", predicateData, edgeId, tgfEdge.to));
+            } else {
+                sb.append(String.format("%s(\"%s\", instanceof, \"%s\").%n", predicateData, edgeId, "edge"));
+                sb.append(String.format("%s(\"%s\", from, \"%s\").%n", predicateData, edgeId, tgfEdge.from));
+                sb.append(String.format("%s(\"%s\", to, \"%s\").%n", predicateData, edgeId, tgfEdge.to));
+                sb.append(String.format("%s(\"%s\", label, \"%s\").%n", predicateData, edgeId, tgfEdge.label));
+            }
+        }
+
+        /**
+         * Add a property {@code count} of the edge, if the edge was added
+         * more than once.
+         */
+        @Override
+        public void edge(StringBuilder sb, int edgeIndex, TgfEdge tgfEdge, int multiplicity) {
+            edge(sb, edgeIndex, tgfEdge);
+            if (multiplicity > 1) {
+                final String edgeId = tgfEdge.from + "-" + tgfEdge.to;
+                sb.append(String.format("%s(\"%s\", count, %d).%n", predicateData, edgeId, multiplicity));
+            }
+        }
+
+        @Override
+        public void end(StringBuilder sb) {
             sb.append(String.format("%n%% end%n"));
-            return sb.toString();
         }
     }
 }
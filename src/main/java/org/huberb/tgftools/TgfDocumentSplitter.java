@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.huberb.tgftools.TgfScanner.ByteBufferScanner;
+
+/**
+ * Splitter of concatenated tgf documents, like the output of
+ * {@code mvn dependency:tree -DoutputType=tgf} of a multi module reactor.
+ * <p>
+ * Documents are separated unambiguously by a separator line, if one is
+ * given. The separator line belongs to no document.
+ * <p>
+ * Otherwise document boundaries are derived from the documents themselves.
+ * Each document consists of nodes, a {@code #} line, and edges. The node
+ * section of the next document is followed by its own {@code #} line, thus
+ * a split happens only between two {@code #} lines. A line of an edge
+ * section having a single field is no edge, but a node of the next
+ * document. The next document starts at the first line after the preceding
+ * {@code #} line, which is such a node, or whose second field is not a
+ * node id of the current document, unless it is followed by a line looking
+ * like an edge of the current document, i.e. whose both fields are node ids
+ * of the current document, before the next node having a single field, or
+ * the next {@code #} line.
+ * <p>
+ * Hence a dangling edge to an undeclared node stays in its document, and
+ * a file of a single document is never split. A node of the next document,
+ * whose name is a node id of the preceding document, may look like an edge
+ * of the preceding document, in this case a separator line is needed.
+ * <p>
+ * Only node ids are decoded while splitting, the second field of an edge is
+ * looked up directly on the UTF-8 bytes.
+ *
+ * @author berni3
+ */
+final class TgfDocumentSplitter {
+
+    private TgfDocumentSplitter() {
+    }
+
+    /**
+     * Split line aligned segments into documents.
+     *
+     * @param commentsList
+     * @param documentSeparator line separating documents, or null to derive
+     * the boundaries from the documents
+     * @param segments line aligned segments of a tgf file
+     * @return one list of line aligned slices of {@code segments} per
+     * document, at least one, possibly empty document
+     */
+    static List<List<ByteBuffer>> split(List<String> commentsList, String documentSeparator, List<ByteBuffer> segments) {
+        final List<int[]> boundaries = documentSeparator != null
+                ? separatorLines(documentSeparator, segments)
+                : boundaries(commentsList, segments);
+        final List<List<ByteBuffer>> documents = new ArrayList<>();
+        List<ByteBuffer> document = new ArrayList<>();
+        int b = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            final ByteBuffer segment = segments.get(s);
+            int documentStart = 0;
+            for (; b < boundaries.size() && boundaries.get(b)[0] == s; b++) {
+                final int documentEnd = boundaries.get(b)[1];
+                if (documentStart < documentEnd) {
+                    document.add(slice(segment, documentStart, documentEnd));
+                }
+                documents.add(document);
+                document = new ArrayList<>();
+                documentStart = boundaries.get(b)[2];
+            }
+            if (documentStart < segment.limit()) {
+                document.add(slice(segment, documentStart, segment.limit()));
+            }
+        }
+        documents.add(document);
+        return documents;
+    }
+
+    /**
+     * Find the separator lines.
+     *
+     * @return segment index, line start, and start of the next line of
+     * each separator line, in file order
+     */
+    private static List<int[]> separatorLines(String documentSeparator, List<ByteBuffer> segments) {
+        final byte[] separator = documentSeparator.trim().getBytes(StandardCharsets.UTF_8);
+        final List<int[]> boundaries = new ArrayList<>();
+        for (int s = 0; s < segments.size(); s++) {
+            final ByteBuffer segment = segments.get(s);
+            final ByteBufferScanner scanner = new ByteBufferScanner(segment);
+            final int limit = segment.limit();
+            for (int lineStart = 0; lineStart < limit;) {
+                final int lineEnd = TgfParser.indexOfLineBreak(segment, lineStart, limit);
+                final int from = scanner.trimStart(lineStart, lineEnd);
+                final int to = scanner.trimEnd(from, lineEnd);
+                if (equals(segment, from, to, separator)) {
+                    boundaries.add(new int[]{s, lineStart, Math.min(lineEnd + 1, limit)});
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+        return boundaries;
+    }
+
+    private static boolean equals(ByteBuffer segment, int from, int to, byte[] bytes) {
+        if (to - from != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (segment.get(from + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the first line of each document but the first one.
+     *
+     * @return segment index, and twice the line start of each boundary, in
+     * file order
+     */
+    private static List<int[]> boundaries(List<String> commentsList, List<ByteBuffer> segments) {
+        final List<int[]> boundaries = new ArrayList<>();
+        TgfSymbolTable nodeIds = new TgfSymbolTable();
+        boolean parsingEdges = false;
+        // first line of the next document, if a # line follows
+        int[] candidate = null;
+        TgfSymbolTable candidateNodeIds = null;
+        // whether a node having a single field follows the candidate
+        boolean definite = false;
+        for (int s = 0; s < segments.size(); s++) {
+            final ByteBuffer segment = segments.get(s);
+            final ByteBufferScanner scanner = new ByteBufferScanner(segment);
+            final int limit = segment.limit();
+            for (int lineStart = 0; lineStart < limit;) {
+                final int lineEnd = TgfParser.indexOfLineBreak(segment, lineStart, limit);
+                final int from = scanner.trimStart(lineStart, lineEnd);
+                final int to = scanner.trimEnd(from, lineEnd);
+                if (from == to || scanner.isComment(commentsList, from, to)) {
+                    // noop
+                } else if (scanner.charAt(from) == '#') {
+                    if (candidate != null) {
+                        boundaries.add(candidate);
+                        nodeIds = candidateNodeIds;
+                        candidate = null;
+                        candidateNodeIds = null;
+                        definite = false;
+                    }
+                    parsingEdges = true;
+                } else if (!parsingEdges) {
+                    internNodeId(nodeIds, scanner, from, to);
+                } else {
+                    final int idEnd = scanner.indexOfBlank(from, to);
+                    final int toStart = scanner.skipBlanks(idEnd, to);
+                    final int toEnd = scanner.trimEnd(toStart, scanner.indexOfBlank(toStart, to));
+                    final boolean singleField = toStart == toEnd;
+                    final boolean knownTo = !singleField && nodeIds.lookup(scanner, toStart, toEnd) != null;
+                    if (candidate == null) {
+                        if (!knownTo) {
+                            candidate = new int[]{s, lineStart, lineStart};
+                            candidateNodeIds = new TgfSymbolTable();
+                            internNodeId(candidateNodeIds, scanner, from, to);
+                            definite = singleField;
+                        }
+                    } else if (!definite && knownTo && nodeIds.lookup(scanner, from, scanner.trimEnd(from, idEnd)) != null) {
+                        // an edge of the current document, the candidate was a dangling edge
+                        candidate = null;
+                        candidateNodeIds = null;
+                    } else {
+                        internNodeId(candidateNodeIds, scanner, from, to);
+                        definite |= singleField;
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+        return boundaries;
+    }
+
+    private static void internNodeId(TgfSymbolTable nodeIds, TgfScanner scanner, int from, int to) {
+        final int idEnd = scanner.trimEnd(from, scanner.indexOfBlank(from, to));
+        nodeIds.intern(scanner, from, idEnd);
+    }
+
+    private static ByteBuffer slice(ByteBuffer segment, int from, int to) {
+        final ByteBuffer bb = segment.duplicate();
+        bb.limit(to);
+        bb.position(from);
+        return bb.slice();
+    }
+}
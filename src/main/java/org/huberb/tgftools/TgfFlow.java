@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.Serializable;
+import java.util.Objects;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+
+/**
+ * Interfaces for publishing tgf records with subscriber demand.
+ * <p>
+ * The interfaces have the same methods, and contracts as
+ * {@code java.util.concurrent.Flow} of Java 9, which is not available on
+ * Java 8. On Java 9, and later they can be bridged by method references.
+ *
+ * @author berni3
+ */
+public final class TgfFlow {
+
+    private TgfFlow() {
+    }
+
+    /**
+     * Producer of items received by {@link Subscriber}s.
+     *
+     * @param <T>
+     */
+    public interface Publisher<T> {
+
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of items, requesting items via its {@link Subscription}.
+     *
+     * @param <T>
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Link of a {@link Publisher}, and a {@link Subscriber}.
+     */
+    public interface Subscription {
+
+        /**
+         * Add {@code n} items to the demand of the subscriber.
+         *
+         * @param n
+         */
+        void request(long n);
+
+        void cancel();
+    }
+
+    /**
+     * A single published tgf record.
+     */
+    public static final class TgfRecord implements Serializable {
+
+        private static final long serialVersionUID = 20211001L;
+
+        /**
+         * Kinds of records.
+         */
+        public enum Kind {
+            node,
+            sectionSeparator,
+            edge
+        }
+
+        private static final TgfRecord SECTION_SEPARATOR = new TgfRecord(Kind.sectionSeparator, null, null);
+
+        final Kind kind;
+        final TgfNode tgfNode;
+        final TgfEdge tgfEdge;
+
+        private TgfRecord(Kind kind, TgfNode tgfNode, TgfEdge tgfEdge) {
+            this.kind = kind;
+            this.tgfNode = tgfNode;
+            this.tgfEdge = tgfEdge;
+        }
+
+        public static TgfRecord node(TgfNode tgfNode) {
+            return new TgfRecord(Kind.node, tgfNode, null);
+        }
+
+        public static TgfRecord sectionSeparator() {
+            return SECTION_SEPARATOR;
+        }
+
+        public static TgfRecord edge(TgfEdge tgfEdge) {
+            return new TgfRecord(Kind.edge, null, tgfEdge);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return node of a {@link Kind#node} record, else null
+         */
+        public TgfNode getTgfNode() {
+            return tgfNode;
+        }
+
+        /**
+         * @return edge of a {@link Kind#edge} record, else null
+         */
+        public TgfEdge getTgfEdge() {
+            return tgfEdge;
+        }
+
+        //---
+        @Override
+        public String toString() {
+            return "TgfRecord{" + "kind=" + kind + ", tgfNode=" + tgfNode + ", tgfEdge=" + tgfEdge + '}';
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 5;
+            hash = 41 * hash + Objects.hashCode(this.kind);
+            hash = 41 * hash + Objects.hashCode(this.tgfNode);
+            hash = 41 * hash + Objects.hashCode(this.tgfEdge);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final TgfRecord other = (TgfRecord) obj;
+            if (this.kind != other.kind) {
+                return false;
+            }
+            if (!Objects.equals(this.tgfNode, other.tgfNode)) {
+                return false;
+            }
+            if (!Objects.equals(this.tgfEdge, other.tgfEdge)) {
+                return false;
+            }
+            return true;
+        }
+    }
+}
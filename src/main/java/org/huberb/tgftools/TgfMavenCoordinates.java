@@ -0,0 +1,305 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+
+/**
+ * Maven coordinates of the nodes of a {@link TgfModel}, as written by
+ * {@code mvn dependency:tree -DoutputType=tgf}.
+ * <p>
+ * Node names like {@code groupId:artifactId:type[:classifier]:version[:scope]}
+ * are decoded once into {@link MavenCoordinate}s. Each distinct component,
+ * e.g. a groupId, or a scope, is stored once in a pool shared by all
+ * coordinates, and each distinct name is decoded once.
+ *
+ * @author berni3
+ */
+public final class TgfMavenCoordinates {
+
+    private final TgfModel tgfModel;
+    /**
+     * Coordinate of each node with a decodable name, by node id.
+     */
+    private final Map<String, MavenCoordinate> coordinates;
+
+    private TgfMavenCoordinates(TgfModel tgfModel, Map<String, MavenCoordinate> coordinates) {
+        this.tgfModel = tgfModel;
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * Decode the names of all nodes of a {@link TgfModel}.
+     *
+     * @param tgfModel
+     * @return
+     */
+    public static TgfMavenCoordinates of(TgfModel tgfModel) {
+        final Decoder decoder = new Decoder();
+        final Map<String, MavenCoordinate> coordinates = new LinkedHashMap<>();
+        for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
+            final MavenCoordinate coordinate = decoder.decode(tgfNode.name);
+            if (coordinate != null) {
+                coordinates.put(tgfNode.id, coordinate);
+            }
+        }
+        return new TgfMavenCoordinates(tgfModel, coordinates);
+    }
+
+    /**
+     * @param nodeId
+     * @return coordinate of the node, or null if the node is unknown, or its
+     * name is no maven coordinate
+     */
+    public MavenCoordinate coordinate(String nodeId) {
+        return coordinates.get(nodeId);
+    }
+
+    /**
+     * @return number of nodes having a coordinate
+     */
+    public int size() {
+        return coordinates.size();
+    }
+
+    /**
+     * Filter the model by the coordinates of its nodes.
+     * <p>
+     * A node is removed if it has a coordinate rejected by
+     * {@code predicate}, nodes without coordinate are kept. An edge is
+     * removed if its from, or to node is removed.
+     *
+     * @param predicate
+     * @return filtered model
+     */
+    public TgfModel filter(Predicate<MavenCoordinate> predicate) {
+        final Set<String> removed = new HashSet<>();
+        coordinates.forEach((id, coordinate) -> {
+            if (!predicate.test(coordinate)) {
+                removed.add(id);
+            }
+        });
+        final TgfModel filtered = new TgfModel(tgfModel.tgfNodeList.size() - removed.size());
+        filtered.setDeduplicateEdges(tgfModel.isDeduplicatingEdges());
+        for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
+            if (!removed.contains(tgfNode.id)) {
+                filtered.addNode(tgfNode);
+            }
+        }
+        for (int e = 0; e < tgfModel.tgfEdgeList.size(); e++) {
+            final TgfEdge tgfEdge = tgfModel.tgfEdgeList.get(e);
+            if (!removed.contains(tgfEdge.from) && !removed.contains(tgfEdge.to)) {
+                filtered.addEdge(tgfEdge, tgfModel.multiplicity(e));
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Predicate accepting coordinates of any of the given scopes.
+     * <p>
+     * The coordinate of the root artifact has no scope, and is always
+     * accepted.
+     *
+     * @param scopes
+     * @return
+     */
+    public static Predicate<MavenCoordinate> scopeIn(String... scopes) {
+        final Set<String> scopeSet = new HashSet<>(Arrays.asList(scopes));
+        return coordinate -> coordinate.scope == null || scopeSet.contains(coordinate.scope);
+    }
+
+    /**
+     * Decoder of maven coordinates, pooling components, and coordinates.
+     * <p>
+     * A decoder is not thread safe.
+     */
+    public static class Decoder {
+
+        private final Map<String, String> componentPool = new HashMap<>();
+        private final Map<String, MavenCoordinate> coordinatePool = new HashMap<>();
+        /**
+         * Indexes of the colons of the currently decoded name.
+         */
+        private final int[] colons = new int[5];
+
+        /**
+         * Decode a name {@code groupId:artifactId:type[:classifier]:version[:scope]}.
+         * <p>
+         * Names of 4 parts are the root artifact without scope, names of 5
+         * parts have a scope, and names of 6 parts a classifier, and a scope.
+         *
+         * @param name
+         * @return coordinate, or null if {@code name} is no maven coordinate
+         */
+        public MavenCoordinate decode(String name) {
+            if (name == null) {
+                return null;
+            }
+            final MavenCoordinate pooled = coordinatePool.get(name);
+            if (pooled != null) {
+                return pooled;
+            }
+            int colonCount = 0;
+            for (int i = name.indexOf(':'); i >= 0; i = name.indexOf(':', i + 1)) {
+                if (colonCount == colons.length) {
+                    return null;
+                }
+                colons[colonCount++] = i;
+            }
+            if (colonCount < 3) {
+                return null;
+            }
+            final String[] parts = new String[colonCount + 1];
+            int start = 0;
+            for (int p = 0; p < parts.length; p++) {
+                final int end = p < colonCount ? colons[p] : name.length();
+                if (start == end) {
+                    return null;
+                }
+                parts[p] = pool(name.substring(start, end));
+                start = end + 1;
+            }
+            final MavenCoordinate coordinate;
+            if (parts.length == 4) {
+                coordinate = new MavenCoordinate(parts[0], parts[1], parts[2], null, parts[3], null);
+            } else if (parts.length == 5) {
+                coordinate = new MavenCoordinate(parts[0], parts[1], parts[2], null, parts[3], parts[4]);
+            } else {
+                coordinate = new MavenCoordinate(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5]);
+            }
+            coordinatePool.put(name, coordinate);
+            return coordinate;
+        }
+
+        private String pool(String component) {
+            final String pooled = componentPool.putIfAbsent(component, component);
+            return pooled != null ? pooled : component;
+        }
+    }
+
+    /**
+     * Maven coordinate of a single artifact.
+     */
+    public static final class MavenCoordinate implements Serializable {
+
+        private static final long serialVersionUID = 20211001L;
+        final String groupId;
+        final String artifactId;
+        final String type;
+        final String classifier;
+        final String version;
+        final String scope;
+
+        public MavenCoordinate(String groupId, String artifactId, String type, String classifier, String version, String scope) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.type = type;
+            this.classifier = classifier;
+            this.version = version;
+            this.scope = scope;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return classifier, or null
+         */
+        public String getClassifier() {
+            return classifier;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * @return scope, or null for the root artifact
+         */
+        public String getScope() {
+            return scope;
+        }
+
+        /**
+         * @return coordinate formatted like the decoded node name
+         */
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(groupId).append(':').append(artifactId).append(':').append(type);
+            if (classifier != null) {
+                sb.append(':').append(classifier);
+            }
+            sb.append(':').append(version);
+            if (scope != null) {
+                sb.append(':').append(scope);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 29 * hash + Objects.hashCode(this.groupId);
+            hash = 29 * hash + Objects.hashCode(this.artifactId);
+            hash = 29 * hash + Objects.hashCode(this.type);
+            hash = 29 * hash + Objects.hashCode(this.classifier);
+            hash = 29 * hash + Objects.hashCode(this.version);
+            hash = 29 * hash + Objects.hashCode(this.scope);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final MavenCoordinate other = (MavenCoordinate) obj;
+            return Objects.equals(this.groupId, other.groupId)
+                    && Objects.equals(this.artifactId, other.artifactId)
+                    && Objects.equals(this.type, other.type)
+                    && Objects.equals(this.classifier, other.classifier)
+                    && Objects.equals(this.version, other.version)
+                    && Objects.equals(this.scope, other.scope);
+        }
+    }
+}
@@ -15,11 +15,18 @@
  */
 package org.huberb.tgftools;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * Encapsulate a model of TGF.
@@ -34,17 +41,334 @@ public class TgfModel implements Serializable {
     final LinkedHashMap<String, TgfNode> tgfNodeList;
     final List<TgfEdge> tgfEdgeList;
 
+    /**
+     * Index of the edges by node id, built on first use, and dropped when an
+     * edge is added.
+     */
+    private transient volatile EdgeIndex edgeIndex;
+    /**
+     * Sums of the 128 bit hashes of the nodes, independent of node order,
+     * like the equality of the node map.
+     * <p>
+     * The fingerprint fields are not serialized, but recomputed when read,
+     * see {@link #readObject(ObjectInputStream)}.
+     */
+    private transient long nodeSumHigh;
+    private transient long nodeSumLow;
+    /**
+     * Polynomial hashes of the edges, dependent on edge order, like the
+     * equality of the edge list.
+     */
+    private transient long edgeHashHigh;
+    private transient long edgeHashLow;
+    /**
+     * Sums of the hashes of edges added again to a deduplicating model,
+     * independent of order, like multiplicities.
+     */
+    private transient long repeatSumHigh;
+    private transient long repeatSumLow;
+
+    /**
+     * Whether edges are deduplicated when added.
+     */
+    private boolean deduplicateEdges;
+    /**
+     * Position of each unique edge in the edge list, if edges are
+     * deduplicated, built on first use.
+     */
+    private transient HashMap<TgfEdge, Integer> edgeDeduplicationIndex;
+    /**
+     * Multiplicity of each edge, null as long as each edge is unique.
+     */
+    private int[] multiplicities;
+    /**
+     * Whether adding nodes, and edges is rejected, see {@link #freeze()}.
+     */
+    private transient boolean frozen;
+
     TgfModel() {
         this.tgfNodeList = new LinkedHashMap<>();
         this.tgfEdgeList = new ArrayList<>();
     }
 
+    /**
+     * Create a model sized for {@code nodeCount} nodes.
+     *
+     * @param nodeCount
+     */
+    TgfModel(int nodeCount) {
+        this.tgfNodeList = new LinkedHashMap<>(Math.max(16, (int) (nodeCount / 0.75f) + 1));
+        this.tgfEdgeList = new ArrayList<>();
+    }
+
     void addNode(TgfNode tgfNode) {
-        this.tgfNodeList.putIfAbsent(tgfNode.id, tgfNode);
+        checkNotFrozen();
+        if (this.tgfNodeList.putIfAbsent(tgfNode.id, tgfNode) == null) {
+            addNodeHash(tgfNode);
+        }
+    }
+
+    private void addNodeHash(TgfNode tgfNode) {
+        nodeSumHigh += Fingerprint.high(tgfNode);
+        nodeSumLow += Fingerprint.low(tgfNode);
+    }
+
+    void ensureEdgeCapacity(int edgeCount) {
+        checkNotFrozen();
+        ((ArrayList<TgfEdge>) this.tgfEdgeList).ensureCapacity(edgeCount);
     }
 
     void addEdge(TgfEdge tgfEdge) {
+        addEdge(tgfEdge, 1);
+    }
+
+    /**
+     * Add an edge {@code multiplicity} times.
+     * <p>
+     * If edges are not deduplicated, the multiplicity must be 1.
+     */
+    void addEdge(TgfEdge tgfEdge, int multiplicity) {
+        checkNotFrozen();
+        if (deduplicateEdges) {
+            final Integer existing = edgeDeduplicationIndex().putIfAbsent(tgfEdge, tgfEdgeList.size());
+            if (existing != null) {
+                addMultiplicity(existing, multiplicity);
+                return;
+            }
+        } else if (multiplicity != 1) {
+            throw new IllegalArgumentException("Multiplicity of edges, which are not deduplicated, must be 1");
+        }
         this.tgfEdgeList.add(tgfEdge);
+        this.edgeIndex = null;
+        addEdgeHash(tgfEdge);
+        if (multiplicity > 1) {
+            addMultiplicity(tgfEdgeList.size() - 1, multiplicity - 1);
+        }
+    }
+
+    /**
+     * Append the nodes, and edges of a partition, whose hashes were computed
+     * while filling the partition.
+     * <p>
+     * The nodes of the partition must not be nodes of this model, and edges
+     * must not be deduplicated.
+     */
+    void append(Partition partition) {
+        checkNotFrozen();
+        if (deduplicateEdges) {
+            throw new IllegalStateException("Appending a partition to a model deduplicating edges is not supported");
+        }
+        for (TgfNode tgfNode : partition.tgfNodeList) {
+            this.tgfNodeList.put(tgfNode.id, tgfNode);
+        }
+        nodeSumHigh += partition.nodeSumHigh;
+        nodeSumLow += partition.nodeSumLow;
+        this.tgfEdgeList.addAll(partition.tgfEdgeList);
+        this.edgeIndex = null;
+        edgeHashHigh = edgeHashHigh * partition.edgePowerHigh + partition.edgeHashHigh;
+        edgeHashLow = edgeHashLow * partition.edgePowerLow + partition.edgeHashLow;
+    }
+
+    /**
+     * Reject adding nodes, and edges from now on.
+     * <p>
+     * Adding throws {@link IllegalStateException} afterwards. The state is
+     * not serialized, a deserialized model is not frozen.
+     */
+    void freeze() {
+        this.frozen = true;
+    }
+
+    /**
+     * @return true if adding nodes, and edges is rejected
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Model is frozen");
+        }
+    }
+
+    private void addEdgeHash(TgfEdge tgfEdge) {
+        edgeHashHigh = edgeHashHigh * Fingerprint.MULTIPLIER_HIGH + Fingerprint.high(tgfEdge);
+        edgeHashLow = edgeHashLow * Fingerprint.MULTIPLIER_LOW + Fingerprint.low(tgfEdge);
+    }
+
+    private void addRepeatHash(TgfEdge tgfEdge, int count) {
+        repeatSumHigh += count * Fingerprint.high(tgfEdge);
+        repeatSumLow += count * Fingerprint.low(tgfEdge);
+    }
+
+    /**
+     * Read the serialized fields, and recompute the fingerprint fields.
+     * <p>
+     * Streams written before edges were deduplicated read as a model of
+     * unique edges.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        tgfNodeList.values().forEach(this::addNodeHash);
+        for (int e = 0; e < tgfEdgeList.size(); e++) {
+            addEdgeHash(tgfEdgeList.get(e));
+            if (multiplicity(e) > 1) {
+                addRepeatHash(tgfEdgeList.get(e), multiplicity(e) - 1);
+            }
+        }
+    }
+
+    /**
+     * Switch on deduplication of edges, before any edge is added.
+     */
+    void setDeduplicateEdges(boolean deduplicateEdges) {
+        checkNotFrozen();
+        if (!tgfEdgeList.isEmpty()) {
+            throw new IllegalStateException("Edge deduplication must be set before adding edges");
+        }
+        this.deduplicateEdges = deduplicateEdges;
+    }
+
+    /**
+     * @return true if adding an edge equal to an added edge increments the
+     * multiplicity of the added edge, instead of adding it again
+     */
+    public boolean isDeduplicatingEdges() {
+        return deduplicateEdges;
+    }
+
+    /**
+     * @param edgeIndex index of an edge in the edge list
+     * @return number of times the edge was added, 1 unless edges are
+     * deduplicated
+     */
+    public int multiplicity(int edgeIndex) {
+        if (edgeIndex < 0 || edgeIndex >= tgfEdgeList.size()) {
+            throw new IndexOutOfBoundsException("Index: " + edgeIndex + ", Size: " + tgfEdgeList.size());
+        }
+        // unique edges added after the array was last grown are beyond its length
+        return multiplicities == null || edgeIndex >= multiplicities.length ? 1 : multiplicities[edgeIndex];
+    }
+
+    /**
+     * Create a model with the nodes of this model, and its edges
+     * deduplicated.
+     * <p>
+     * The first occurrence of an edge keeps its position, later equal edges
+     * increment its {@link #multiplicity(int)}.
+     *
+     * @return
+     */
+    public TgfModel withDeduplicatedEdges() {
+        final TgfModel deduplicated = new TgfModel(tgfNodeList.size());
+        deduplicated.setDeduplicateEdges(true);
+        tgfNodeList.values().forEach(deduplicated::addNode);
+        for (int e = 0; e < tgfEdgeList.size(); e++) {
+            deduplicated.addEdge(tgfEdgeList.get(e), multiplicity(e));
+        }
+        return deduplicated;
+    }
+
+    private HashMap<TgfEdge, Integer> edgeDeduplicationIndex() {
+        if (edgeDeduplicationIndex == null) {
+            edgeDeduplicationIndex = new HashMap<>();
+            for (int e = 0; e < tgfEdgeList.size(); e++) {
+                edgeDeduplicationIndex.putIfAbsent(tgfEdgeList.get(e), e);
+            }
+        }
+        return edgeDeduplicationIndex;
+    }
+
+    /**
+     * Add {@code count} to the multiplicity of an edge.
+     */
+    private void addMultiplicity(int edgeIndex, int count) {
+        if (multiplicities == null) {
+            multiplicities = new int[Math.max(16, tgfEdgeList.size())];
+            Arrays.fill(multiplicities, 1);
+        } else if (multiplicities.length < tgfEdgeList.size()) {
+            final int length = multiplicities.length;
+            multiplicities = Arrays.copyOf(multiplicities, Math.max(length * 2, tgfEdgeList.size()));
+            Arrays.fill(multiplicities, length, multiplicities.length, 1);
+        }
+        multiplicities[edgeIndex] += count;
+        // sum of the hashes of all repetitions, as in adding them one by one
+        addRepeatHash(tgfEdgeList.get(edgeIndex), count);
+    }
+
+    /**
+     * Content fingerprint of this model.
+     * <p>
+     * The fingerprint is maintained while nodes, and edges are added, thus
+     * getting it takes constant time. Equal models have equal fingerprints,
+     * models with different fingerprints are not equal.
+     *
+     * @return
+     */
+    public Fingerprint fingerprint() {
+        return new Fingerprint(
+                Fingerprint.fmix(nodeSumHigh + repeatSumHigh + Fingerprint.fmix(edgeHashHigh ^ tgfEdgeList.size())),
+                Fingerprint.fmix(nodeSumLow + repeatSumLow + Fingerprint.fmix(edgeHashLow ^ tgfNodeList.size())));
+    }
+
+    /**
+     * @param id node id
+     * @return unmodifiable list of the edges from node {@code id}, in file
+     * order
+     */
+    public List<TgfEdge> outgoing(String id) {
+        return edgeIndex().outgoing(id);
+    }
+
+    /**
+     * @param id node id
+     * @return unmodifiable list of the edges to node {@code id}, in file
+     * order
+     */
+    public List<TgfEdge> incoming(String id) {
+        return edgeIndex().incoming(id);
+    }
+
+    /**
+     * @param id node id
+     * @return number of edges from, and to node {@code id}
+     */
+    public int degree(String id) {
+        return edgeIndex().degree(id);
+    }
+
+    private EdgeIndex edgeIndex() {
+        EdgeIndex result = edgeIndex;
+        if (result == null) {
+            result = new EdgeIndex(this);
+            edgeIndex = result;
+        }
+        return result;
+    }
+
+    /**
+     * Merge the models of several tgf documents into a single model.
+     * <p>
+     * Node ids of different documents may collide, thus each id is prefixed
+     * by the index of its document, and a colon, e.g. node {@code 1} of the
+     * second document gets the id {@code 1:1}. Names, and labels are kept.
+     *
+     * @param tgfModelList
+     * @return
+     * @see TgfParser#parseDocuments(java.nio.file.Path)
+     */
+    public static TgfModel mergeDocuments(List<TgfModel> tgfModelList) {
+        final TgfModel merged = new TgfModel();
+        for (int i = 0; i < tgfModelList.size(); i++) {
+            final String prefix = i + ":";
+            final TgfModel tgfModel = tgfModelList.get(i);
+            tgfModel.tgfNodeList.values().forEach(tgfNode
+                    -> merged.addNode(new TgfNode(prefix + tgfNode.id, tgfNode.name)));
+            tgfModel.tgfEdgeList.forEach(tgfEdge
+                    -> merged.addEdge(new TgfEdge(prefix + tgfEdge.from, prefix + tgfEdge.to, tgfEdge.label)));
+        }
+        return merged;
     }
 
     @Override
@@ -54,10 +378,7 @@ public class TgfModel implements Serializable {
 
     @Override
     public int hashCode() {
-        int hash = 3;
-        hash = 89 * hash + Objects.hashCode(this.tgfNodeList);
-        hash = 89 * hash + Objects.hashCode(this.tgfEdgeList);
-        return hash;
+        return fingerprint().hashCode();
     }
 
     @Override
@@ -72,15 +393,235 @@ public class TgfModel implements Serializable {
             return false;
         }
         final TgfModel other = (TgfModel) obj;
+        if (!fingerprint().equals(other.fingerprint())) {
+            return false;
+        }
         if (!Objects.equals(this.tgfNodeList, other.tgfNodeList)) {
             return false;
         }
         if (!Objects.equals(this.tgfEdgeList, other.tgfEdgeList)) {
             return false;
         }
+        if (this.multiplicities != null || other.multiplicities != null) {
+            for (int e = 0; e < tgfEdgeList.size(); e++) {
+                if (multiplicity(e) != other.multiplicity(e)) {
+                    return false;
+                }
+            }
+        }
         return true;
     }
 
+    /**
+     * 128 bit content fingerprint of a {@link TgfModel}.
+     * <p>
+     * Strings are hashed char wise in two independent 64 bit lanes, each
+     * string hash is finalized by the MurmurHash3 64 bit finalizer. The
+     * fingerprint is not a cryptographic hash.
+     */
+    public static final class Fingerprint implements Serializable {
+
+        private static final long serialVersionUID = 20211001L;
+        static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+        static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+        static final long MULTIPLIER_HIGH = 0x100000001B3L;
+        static final long MULTIPLIER_LOW = 0xD6E8FEB86659FD93L;
+
+        private final long high;
+        private final long low;
+
+        Fingerprint(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        public long getHigh() {
+            return high;
+        }
+
+        public long getLow() {
+            return low;
+        }
+
+        /**
+         * Hash a node in the high lane.
+         */
+        static long high(TgfNode tgfNode) {
+            return high(high(SEED_HIGH, tgfNode.id), tgfNode.name);
+        }
+
+        /**
+         * Hash a node in the low lane.
+         */
+        static long low(TgfNode tgfNode) {
+            return low(low(SEED_LOW, tgfNode.id), tgfNode.name);
+        }
+
+        /**
+         * Hash an edge in the high lane.
+         */
+        static long high(TgfEdge tgfEdge) {
+            return high(high(high(SEED_HIGH, tgfEdge.from), tgfEdge.to), tgfEdge.label);
+        }
+
+        /**
+         * Hash an edge in the low lane.
+         */
+        static long low(TgfEdge tgfEdge) {
+            return low(low(low(SEED_LOW, tgfEdge.from), tgfEdge.to), tgfEdge.label);
+        }
+
+        /**
+         * Continue hash {@code h} of the high lane with a string.
+         */
+        static long high(long h, String s) {
+            return hash(h, s, MULTIPLIER_HIGH);
+        }
+
+        /**
+         * Continue hash {@code h} of the low lane with a string.
+         */
+        static long low(long h, String s) {
+            return hash(h, s, MULTIPLIER_LOW);
+        }
+
+        private static long hash(long h, String s, long multiplier) {
+            if (s == null) {
+                // differs from the empty string, whose length is 0
+                return fmix(h ^ -1L);
+            }
+            for (int i = 0; i < s.length(); i++) {
+                h = (h ^ s.charAt(i)) * multiplier;
+            }
+            return fmix(h ^ s.length());
+        }
+
+        static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xFF51AFD7ED558CCDL;
+            k ^= k >>> 33;
+            k *= 0xC4CEB9FE1A85EC53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (high ^ (high >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final Fingerprint other = (Fingerprint) obj;
+            return this.high == other.high && this.low == other.low;
+        }
+    }
+
+    /**
+     * Index of edges by their from, and to node ids.
+     * <p>
+     * The rows are the out-, and in-edge rows of a {@link TgfCompactGraph}
+     * of the model. As its slots are filled in model order, each slot is
+     * mapped back to the index of its edge in the model.
+     */
+    static class EdgeIndex {
+
+        private final List<TgfEdge> tgfEdgeList;
+        private final TgfCompactGraph graph;
+        /**
+         * Model edge index of each out slot.
+         */
+        private final int[] outEdges;
+        /**
+         * Model edge index of each in slot.
+         */
+        private final int[] inEdges;
+
+        EdgeIndex(TgfModel tgfModel) {
+            this.tgfEdgeList = tgfModel.tgfEdgeList;
+            this.graph = TgfCompactGraph.of(tgfModel);
+            final int edgeCount = tgfEdgeList.size();
+            this.outEdges = new int[edgeCount];
+            final int[] outNext = Arrays.copyOf(graph.outOffsets, graph.nodeCount());
+            for (int e = 0; e < edgeCount; e++) {
+                outEdges[outNext[graph.nodeIndex(tgfEdgeList.get(e).from)]++] = e;
+            }
+            this.inEdges = new int[edgeCount];
+            for (int slot = 0; slot < edgeCount; slot++) {
+                inEdges[slot] = outEdges[graph.inEdges[slot]];
+            }
+        }
+
+        List<TgfEdge> outgoing(String id) {
+            final int node = graph.nodeIndex(id);
+            if (node < 0) {
+                return Collections.emptyList();
+            }
+            return new EdgeRow(tgfEdgeList, outEdges, graph.outStart(node), graph.outEnd(node));
+        }
+
+        List<TgfEdge> incoming(String id) {
+            final int node = graph.nodeIndex(id);
+            if (node < 0) {
+                return Collections.emptyList();
+            }
+            return new EdgeRow(tgfEdgeList, inEdges, graph.inStart(node), graph.inEnd(node));
+        }
+
+        int degree(String id) {
+            final int node = graph.nodeIndex(id);
+            if (node < 0) {
+                return 0;
+            }
+            return graph.outDegree(node) + graph.inDegree(node);
+        }
+    }
+
+    /**
+     * Read-only view of a row of an {@link EdgeIndex}.
+     */
+    static class EdgeRow extends AbstractList<TgfEdge> implements RandomAccess {
+
+        private final List<TgfEdge> tgfEdgeList;
+        private final int[] edges;
+        private final int from;
+        private final int to;
+
+        EdgeRow(List<TgfEdge> tgfEdgeList, int[] edges, int from, int to) {
+            this.tgfEdgeList = tgfEdgeList;
+            this.edges = edges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public TgfEdge get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+            }
+            return tgfEdgeList.get(edges[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
     /**
      * Encapsulate a TGF node.
      */
@@ -207,6 +748,44 @@ public class TgfModel implements Serializable {
         }
     }
 
+    /**
+     * Nodes, and edges to be appended to a model, together with their
+     * fingerprint hashes.
+     * <p>
+     * Partitions are filled independently, e.g. one per thread, and
+     * appended in order by {@link TgfModel#append(Partition)}, thus hashing
+     * runs on the filling threads. Node ids are not deduplicated.
+     */
+    static final class Partition {
+
+        final List<TgfNode> tgfNodeList = new ArrayList<>();
+        final List<TgfEdge> tgfEdgeList = new ArrayList<>();
+        private long nodeSumHigh;
+        private long nodeSumLow;
+        private long edgeHashHigh;
+        private long edgeHashLow;
+        /**
+         * Multipliers of the edge hashes to the power of the number of
+         * edges, shifting the hash of a model before appending the edges.
+         */
+        private long edgePowerHigh = 1L;
+        private long edgePowerLow = 1L;
+
+        void addNode(TgfNode tgfNode) {
+            tgfNodeList.add(tgfNode);
+            nodeSumHigh += Fingerprint.high(tgfNode);
+            nodeSumLow += Fingerprint.low(tgfNode);
+        }
+
+        void addEdge(TgfEdge tgfEdge) {
+            tgfEdgeList.add(tgfEdge);
+            edgeHashHigh = edgeHashHigh * Fingerprint.MULTIPLIER_HIGH + Fingerprint.high(tgfEdge);
+            edgeHashLow = edgeHashLow * Fingerprint.MULTIPLIER_LOW + Fingerprint.low(tgfEdge);
+            edgePowerHigh *= Fingerprint.MULTIPLIER_HIGH;
+            edgePowerLow *= Fingerprint.MULTIPLIER_LOW;
+        }
+    }
+
     /**
      * Simple builder for building an {@link TgfModel} instance.
      */
@@ -214,6 +793,17 @@ public class TgfModel implements Serializable {
 
         private final TgfModel tgfModel = new TgfModel();
 
+        /**
+         * Deduplicate edges, must be called before adding edges.
+         *
+         * @return this builder
+         * @see TgfModel#withDeduplicatedEdges()
+         */
+        public Builder deduplicateEdges() {
+            tgfModel.setDeduplicateEdges(true);
+            return this;
+        }
+
         public Builder node(TgfNode n) {
             tgfModel.addNode(n);
             return this;
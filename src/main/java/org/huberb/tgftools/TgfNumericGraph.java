@@ -0,0 +1,448 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.util.Arrays;
+import org.huberb.tgftools.TgfCompactGraph.StringIndex;
+import org.huberb.tgftools.TgfConverters.ITgfRecordConverter;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfParser.ITgfParseListener;
+import org.huberb.tgftools.TgfScanner.CharArrayScanner;
+
+/**
+ * Read-only graph keyed by numeric node ids.
+ * <p>
+ * Ids in canonical decimal form, e.g. {@code 4711}, are stored as
+ * {@code long}s in a primitive hash table, other ids, e.g. {@code 007}, or
+ * {@code a1}, fall back to strings. Both are numbered densely
+ * {@code 0..idCount()-1} in the order of their first occurrence. Numeric ids
+ * are formatted to strings only when accessed, e.g. when a converter emits
+ * them.
+ *
+ * @author berni3
+ * @see TgfParser#parseNumeric(java.nio.file.Path)
+ */
+public final class TgfNumericGraph {
+
+    private final LongIndex numericIndex;
+    private final StringIndex otherIndex;
+    private final int[] otherIdNumbers;
+    /**
+     * Numeric id of each id number.
+     */
+    private final long[] numericIds;
+    /**
+     * String id of each id number, null for numeric ids.
+     */
+    private final String[] otherIds;
+    /**
+     * Id numbers of the declared nodes, in declaration order.
+     */
+    private final int[] nodes;
+    private final String[] nodeNames;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] edgeLabels;
+    private final String[] labels;
+
+    private TgfNumericGraph(Builder builder) {
+        this.numericIndex = builder.numericIndex;
+        this.otherIndex = builder.otherIndex;
+        this.otherIdNumbers = Arrays.copyOf(builder.otherIdNumbers, builder.otherIndex.size);
+        this.numericIds = Arrays.copyOf(builder.numericIds, builder.idCount);
+        this.otherIds = Arrays.copyOf(builder.otherIds, builder.idCount);
+        this.nodes = Arrays.copyOf(builder.nodes, builder.nodeCount);
+        this.nodeNames = Arrays.copyOf(builder.nodeNames, builder.nodeCount);
+        this.edgeFrom = Arrays.copyOf(builder.edgeFrom, builder.edgeCount);
+        this.edgeTo = Arrays.copyOf(builder.edgeTo, builder.edgeCount);
+        this.edgeLabels = Arrays.copyOf(builder.edgeLabels, builder.edgeCount);
+        builder.labelIndex.trim();
+        this.labels = builder.labelIndex.keys;
+    }
+
+    /**
+     * Create a numeric graph of a {@link TgfModel}.
+     *
+     * @param tgfModel
+     * @return
+     */
+    public static TgfNumericGraph of(TgfModel tgfModel) {
+        final Builder builder = new Builder();
+        tgfModel.tgfNodeList.values().forEach(builder::onNode);
+        tgfModel.tgfEdgeList.forEach(builder::onEdge);
+        return builder.build();
+    }
+
+    /**
+     * @return number of distinct ids of declared, and of edge-only nodes
+     */
+    public int idCount() {
+        return numericIds.length;
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    public int edgeCount() {
+        return edgeFrom.length;
+    }
+
+    /**
+     * @param id
+     * @return id number of the numeric {@code id}, or -1 if there is no such
+     * id
+     */
+    public int idNumber(long id) {
+        return numericIndex.get(id);
+    }
+
+    /**
+     * @param id
+     * @return id number of {@code id}, or -1 if there is no such id
+     */
+    public int idNumber(String id) {
+        final CharArrayScanner scanner = new CharArrayScanner(id.toCharArray());
+        if (scanner.parseCanonicalLong(0, id.length())) {
+            return numericIndex.get(scanner.longValue);
+        }
+        final int other = otherIndex.indexOf(id);
+        return other < 0 ? -1 : otherIdNumbers[other];
+    }
+
+    /**
+     * @param idNumber
+     * @return true if the id is stored as {@code long}
+     */
+    public boolean isNumeric(int idNumber) {
+        return otherIds[idNumber] == null;
+    }
+
+    /**
+     * @param idNumber id number of a numeric id
+     * @return numeric id
+     */
+    public long numericId(int idNumber) {
+        if (!isNumeric(idNumber)) {
+            throw new IllegalArgumentException(String.format("Id %s is not numeric", otherIds[idNumber]));
+        }
+        return numericIds[idNumber];
+    }
+
+    /**
+     * @param idNumber
+     * @return id formatted as string
+     */
+    public String id(int idNumber) {
+        final String other = otherIds[idNumber];
+        return other != null ? other : Long.toString(numericIds[idNumber]);
+    }
+
+    /**
+     * @param node index of a declared node
+     * @return id number of the node
+     */
+    public int node(int node) {
+        return nodes[node];
+    }
+
+    public String nodeId(int node) {
+        return id(nodes[node]);
+    }
+
+    public String nodeName(int node) {
+        return nodeNames[node];
+    }
+
+    /**
+     * @param edge
+     * @return id number of the source of the edge
+     */
+    public int edgeSource(int edge) {
+        return edgeFrom[edge];
+    }
+
+    /**
+     * @param edge
+     * @return id number of the target of the edge
+     */
+    public int edgeTarget(int edge) {
+        return edgeTo[edge];
+    }
+
+    public String edgeFrom(int edge) {
+        return id(edgeFrom[edge]);
+    }
+
+    public String edgeTo(int edge) {
+        return id(edgeTo[edge]);
+    }
+
+    public String edgeLabel(int edge) {
+        return edgeLabels[edge] < 0 ? null : labels[edgeLabels[edge]];
+    }
+
+    /**
+     * Convert this graph, formatting each id while it is emitted.
+     *
+     * @param tgfRecordConverter
+     * @return same as converting the equal {@link TgfModel}
+     */
+    public String convert(ITgfRecordConverter tgfRecordConverter) {
+        final StringBuilder sb = new StringBuilder();
+        tgfRecordConverter.start(sb);
+        for (int n = 0; n < nodeCount(); n++) {
+            tgfRecordConverter.node(sb, n, new TgfNode(nodeId(n), nodeName(n)));
+        }
+        tgfRecordConverter.edgesStart(sb);
+        for (int e = 0; e < edgeCount(); e++) {
+            tgfRecordConverter.edge(sb, e, new TgfEdge(edgeFrom(e), edgeTo(e), edgeLabel(e)));
+        }
+        tgfRecordConverter.end(sb);
+        return sb.toString();
+    }
+
+    /**
+     * @return {@link TgfModel} with formatted ids, sharing the string of
+     * each id
+     */
+    public TgfModel toTgfModel() {
+        final String[] ids = new String[idCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = id(i);
+        }
+        final TgfModel tgfModel = new TgfModel(nodeCount());
+        for (int n = 0; n < nodeCount(); n++) {
+            tgfModel.addNode(new TgfNode(ids[nodes[n]], nodeNames[n]));
+        }
+        tgfModel.ensureEdgeCapacity(edgeCount());
+        for (int e = 0; e < edgeCount(); e++) {
+            tgfModel.addEdge(new TgfEdge(ids[edgeFrom[e]], ids[edgeTo[e]], edgeLabel(e)));
+        }
+        return tgfModel;
+    }
+
+    /**
+     * Builder of a {@link TgfNumericGraph}.
+     * <p>
+     * {@link TgfParser#parseNumeric(java.nio.file.Path)} passes ids as index
+     * ranges of the scanned input, so that numeric ids never become strings.
+     * As {@link ITgfParseListener} the builder receives ids as strings.
+     * A builder must not be used anymore after {@link #build()}.
+     */
+    public static class Builder implements ITgfParseListener {
+
+        private final LongIndex numericIndex = new LongIndex();
+        private final StringIndex otherIndex = new StringIndex();
+        private final StringIndex labelIndex = new StringIndex();
+        private final CharArrayScanner stringScanner = new CharArrayScanner(new char[0]);
+        private int[] otherIdNumbers = new int[16];
+        private long[] numericIds = new long[16];
+        private String[] otherIds = new String[16];
+        private int idCount;
+        /**
+         * Declared flag of each id number.
+         */
+        private boolean[] declared = new boolean[16];
+        private int[] nodes = new int[16];
+        private String[] nodeNames = new String[16];
+        private int nodeCount;
+        private int[] edgeFrom = new int[16];
+        private int[] edgeTo = new int[16];
+        private int[] edgeLabels = new int[16];
+        private int edgeCount;
+
+        @Override
+        public void onNode(TgfNode tgfNode) {
+            addNode(id(tgfNode.id), tgfNode.name);
+        }
+
+        @Override
+        public void onSectionSeparator() {
+            // noop
+        }
+
+        @Override
+        public void onEdge(TgfEdge tgfEdge) {
+            addEdge(id(tgfEdge.from), id(tgfEdge.to), tgfEdge.label);
+        }
+
+        @Override
+        public void onEnd() {
+            // noop
+        }
+
+        /**
+         * @return id number of the id stored in {@code [from..to)} of the
+         * scanner, adding it if unknown
+         */
+        int id(TgfScanner scanner, int from, int to) {
+            from = scanner.trimStart(from, to);
+            to = scanner.trimEnd(from, to);
+            if (scanner.parseCanonicalLong(from, to)) {
+                return numericId(scanner.longValue);
+            }
+            return otherId(scanner.trimmedString(from, to));
+        }
+
+        private int id(String id) {
+            stringScanner.cs = id.toCharArray();
+            if (stringScanner.parseCanonicalLong(0, id.length())) {
+                return numericId(stringScanner.longValue);
+            }
+            return otherId(id);
+        }
+
+        private int numericId(long id) {
+            final int idNumber = numericIndex.get(id);
+            if (idNumber >= 0) {
+                return idNumber;
+            }
+            numericIndex.put(id, idCount);
+            return newId(id, null);
+        }
+
+        private int otherId(String id) {
+            final int size = otherIndex.size;
+            final int other = otherIndex.add(id);
+            if (other < size) {
+                return otherIdNumbers[other];
+            }
+            if (other == otherIdNumbers.length) {
+                otherIdNumbers = Arrays.copyOf(otherIdNumbers, other * 2);
+            }
+            otherIdNumbers[other] = idCount;
+            return newId(0L, id);
+        }
+
+        private int newId(long numericId, String otherId) {
+            if (idCount == numericIds.length) {
+                final int capacity = idCount * 2;
+                numericIds = Arrays.copyOf(numericIds, capacity);
+                otherIds = Arrays.copyOf(otherIds, capacity);
+                declared = Arrays.copyOf(declared, capacity);
+            }
+            numericIds[idCount] = numericId;
+            otherIds[idCount] = otherId;
+            idCount += 1;
+            return idCount - 1;
+        }
+
+        void addNode(int idNumber, String name) {
+            if (declared[idNumber]) {
+                // the first node of an id wins, like in TgfModel
+                return;
+            }
+            declared[idNumber] = true;
+            if (nodeCount == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodeCount * 2);
+                nodeNames = Arrays.copyOf(nodeNames, nodeCount * 2);
+            }
+            nodes[nodeCount] = idNumber;
+            nodeNames[nodeCount] = name;
+            nodeCount += 1;
+        }
+
+        void addEdge(int fromIdNumber, int toIdNumber, String label) {
+            if (edgeCount == edgeFrom.length) {
+                final int capacity = edgeCount * 2;
+                edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+                edgeTo = Arrays.copyOf(edgeTo, capacity);
+                edgeLabels = Arrays.copyOf(edgeLabels, capacity);
+            }
+            edgeFrom[edgeCount] = fromIdNumber;
+            edgeTo[edgeCount] = toIdNumber;
+            edgeLabels[edgeCount] = labelIndex.add(label);
+            edgeCount += 1;
+        }
+
+        public TgfNumericGraph build() {
+            otherIndex.trim();
+            return new TgfNumericGraph(this);
+        }
+    }
+
+    /**
+     * Primitive hash table mapping {@code long} keys to {@code int} values,
+     * using open addressing.
+     */
+    static final class LongIndex {
+
+        private long[] keys = new long[32];
+        /**
+         * Value plus one of a slot, 0 for an empty slot.
+         */
+        private int[] values = new int[32];
+        int size;
+
+        /**
+         * @return value of {@code key}, or -1
+         */
+        int get(long key) {
+            final int mask = keys.length - 1;
+            for (int i = mix(key) & mask; values[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Put the value of a key, which is not contained yet.
+         *
+         * @param key
+         * @param value non negative value
+         */
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length) {
+                rehash(keys.length * 2);
+            }
+            final int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (values[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value + 1;
+            size += 1;
+        }
+
+        private void rehash(int capacity) {
+            final long[] oldKeys = keys;
+            final int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            final int mask = capacity - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldValues[k] != 0) {
+                    int i = mix(oldKeys[k]) & mask;
+                    while (values[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[k];
+                    values[i] = oldValues[k];
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            final long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import org.huberb.tgftools.TgfCompactGraph.StringIndex;
+import org.huberb.tgftools.TgfConverters.ITgfRecordConverter;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfParser.ITgfParseListener;
+
+/**
+ * Tgf model keeping node names, and edge labels off-heap.
+ * <p>
+ * Names, and distinct labels are stored UTF-8 encoded in a
+ * {@link TgfStringArena}, the model keeps only references into the arena.
+ * Node ids stay on the heap, as they are needed for lookups. Names, and
+ * labels are decoded when accessed, e.g. when a converter emits them.
+ * <p>
+ * After {@link #close()} the arena is invalidated, and accessing names, or
+ * labels throws {@link IllegalStateException}. Closing frees the off-heap
+ * memory, see {@link TgfStringArena#close()}.
+ * <p>
+ * Edges are kept as they are added, thus models deduplicating edges are
+ * not supported.
+ *
+ * @author berni3
+ */
+public final class TgfOffHeapModel implements Closeable {
+
+    private static final long NULL_REF = -1L;
+
+    private final TgfStringArena arena;
+    /**
+     * Ids of declared, and of edge-only nodes.
+     */
+    private final StringIndex ids;
+    /**
+     * Id numbers of the declared nodes, in declaration order.
+     */
+    private final int[] nodes;
+    /**
+     * Name reference of each declared node.
+     */
+    private final long[] nameRefs;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] edgeLabels;
+    private final long[] labelRefs;
+
+    private TgfOffHeapModel(Builder builder) {
+        this.arena = builder.arena;
+        this.ids = builder.ids;
+        this.nodes = Arrays.copyOf(builder.nodes, builder.nodeCount);
+        this.nameRefs = Arrays.copyOf(builder.nameRefs, builder.nodeCount);
+        this.edgeFrom = Arrays.copyOf(builder.edgeFrom, builder.edgeCount);
+        this.edgeTo = Arrays.copyOf(builder.edgeTo, builder.edgeCount);
+        this.edgeLabels = Arrays.copyOf(builder.edgeLabels, builder.edgeCount);
+        this.labelRefs = Arrays.copyOf(builder.labelRefs, builder.labels.size);
+    }
+
+    /**
+     * Create an off-heap model of a {@link TgfModel}.
+     *
+     * @param tgfModel model, not deduplicating edges
+     * @return
+     * @throws IllegalArgumentException if {@code tgfModel} deduplicates
+     * edges, as the multiplicities of its edges would be lost
+     */
+    public static TgfOffHeapModel of(TgfModel tgfModel) {
+        if (tgfModel.isDeduplicatingEdges()) {
+            throw new IllegalArgumentException("Off-heap model of a model deduplicating edges is not supported");
+        }
+        final Builder builder = new Builder();
+        tgfModel.tgfNodeList.values().forEach(builder::onNode);
+        tgfModel.tgfEdgeList.forEach(builder::onEdge);
+        return builder.build();
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    public int edgeCount() {
+        return edgeFrom.length;
+    }
+
+    public String nodeId(int node) {
+        return ids.keys[nodes[node]];
+    }
+
+    /**
+     * @param node
+     * @return decoded name of the node
+     */
+    public String nodeName(int node) {
+        return string(nameRefs[node]);
+    }
+
+    public String edgeFrom(int edge) {
+        return ids.keys[edgeFrom[edge]];
+    }
+
+    public String edgeTo(int edge) {
+        return ids.keys[edgeTo[edge]];
+    }
+
+    /**
+     * @param edge
+     * @return decoded label of the edge
+     */
+    public String edgeLabel(int edge) {
+        final int label = edgeLabels[edge];
+        return label < 0 ? null : string(labelRefs[label]);
+    }
+
+    /**
+     * @return number of bytes allocated off-heap, after {@link #close()}
+     * the bytes left to the garbage collector, i.e. 0 if the memory was
+     * freed
+     */
+    public long offHeapSize() {
+        return arena.allocated();
+    }
+
+    /**
+     * Convert this model, decoding each name, and label while it is
+     * emitted.
+     *
+     * @param tgfRecordConverter
+     * @return same as converting the equal {@link TgfModel}
+     */
+    public String convert(ITgfRecordConverter tgfRecordConverter) {
+        final StringBuilder sb = new StringBuilder();
+        tgfRecordConverter.start(sb);
+        for (int n = 0; n < nodeCount(); n++) {
+            tgfRecordConverter.node(sb, n, new TgfNode(nodeId(n), nodeName(n)));
+        }
+        tgfRecordConverter.edgesStart(sb);
+        for (int e = 0; e < edgeCount(); e++) {
+            tgfRecordConverter.edge(sb, e, new TgfEdge(edgeFrom(e), edgeTo(e), edgeLabel(e)));
+        }
+        tgfRecordConverter.end(sb);
+        return sb.toString();
+    }
+
+    /**
+     * @return {@link TgfModel} with decoded names, and labels
+     */
+    public TgfModel toTgfModel() {
+        final TgfModel tgfModel = new TgfModel(nodeCount());
+        for (int n = 0; n < nodeCount(); n++) {
+            tgfModel.addNode(new TgfNode(nodeId(n), nodeName(n)));
+        }
+        tgfModel.ensureEdgeCapacity(edgeCount());
+        final String[] labels = new String[labelRefs.length];
+        for (int e = 0; e < edgeCount(); e++) {
+            final int label = edgeLabels[e];
+            if (label >= 0 && labels[label] == null) {
+                labels[label] = string(labelRefs[label]);
+            }
+            tgfModel.addEdge(new TgfEdge(edgeFrom(e), edgeTo(e), label < 0 ? null : labels[label]));
+        }
+        return tgfModel;
+    }
+
+    /**
+     * Invalidate the off-heap arena, and free its memory.
+     *
+     * @see TgfStringArena#close()
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private String string(long ref) {
+        return ref == NULL_REF ? null : arena.get(ref);
+    }
+
+    /**
+     * Builder of a {@link TgfOffHeapModel}, receiving nodes, and edges
+     * directly from {@link TgfParser} as {@link ITgfParseListener}.
+     * <p>
+     * A builder must not be used anymore after {@link #build()}.
+     */
+    public static class Builder implements ITgfParseListener {
+
+        private final TgfStringArena arena = new TgfStringArena();
+        private final StringIndex ids = new StringIndex();
+        private final StringIndex labels = new StringIndex();
+        /**
+         * Declared flag of each id number.
+         */
+        private boolean[] declared = new boolean[16];
+        private int[] nodes = new int[16];
+        private long[] nameRefs = new long[16];
+        private int nodeCount;
+        private int[] edgeFrom = new int[16];
+        private int[] edgeTo = new int[16];
+        private int[] edgeLabels = new int[16];
+        private int edgeCount;
+        private long[] labelRefs = new long[16];
+
+        @Override
+        public void onNode(TgfNode tgfNode) {
+            final int id = addId(tgfNode.id);
+            if (declared[id]) {
+                // the first node of an id wins, like in TgfModel
+                return;
+            }
+            declared[id] = true;
+            if (nodeCount == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodeCount * 2);
+                nameRefs = Arrays.copyOf(nameRefs, nodeCount * 2);
+            }
+            nodes[nodeCount] = id;
+            nameRefs[nodeCount] = tgfNode.name == null ? NULL_REF : arena.add(tgfNode.name);
+            nodeCount += 1;
+        }
+
+        @Override
+        public void onSectionSeparator() {
+            // noop
+        }
+
+        @Override
+        public void onEdge(TgfEdge tgfEdge) {
+            if (edgeCount == edgeFrom.length) {
+                final int capacity = edgeCount * 2;
+                edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+                edgeTo = Arrays.copyOf(edgeTo, capacity);
+                edgeLabels = Arrays.copyOf(edgeLabels, capacity);
+            }
+            edgeFrom[edgeCount] = addId(tgfEdge.from);
+            edgeTo[edgeCount] = addId(tgfEdge.to);
+            edgeLabels[edgeCount] = addLabel(tgfEdge.label);
+            edgeCount += 1;
+        }
+
+        @Override
+        public void onEnd() {
+            // noop
+        }
+
+        private int addId(String id) {
+            final int n = ids.add(id);
+            if (n == declared.length) {
+                declared = Arrays.copyOf(declared, n * 2);
+            }
+            return n;
+        }
+
+        /**
+         * @return number of the label, or -1 for a null label
+         */
+        private int addLabel(String label) {
+            if (label == null) {
+                return -1;
+            }
+            final int size = labels.size;
+            final int n = labels.add(label);
+            if (n == size) {
+                if (n == labelRefs.length) {
+                    labelRefs = Arrays.copyOf(labelRefs, n * 2);
+                }
+                labelRefs[n] = arena.add(label);
+            }
+            return n;
+        }
+
+        public TgfOffHeapModel build() {
+            ids.trim();
+            return new TgfOffHeapModel(this);
+        }
+    }
+}
@@ -15,13 +15,31 @@
  */
 package org.huberb.tgftools;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.huberb.tgftools.TgfModel.TgfEdge;
 import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfScanner.ByteBufferScanner;
+import org.huberb.tgftools.TgfScanner.CharArrayScanner;
 
 /**
  *
@@ -45,6 +63,10 @@ import org.huberb.tgftools.TgfModel.TgfNode;
  * #
  * 2 1 hello
  * </pre></code>
+ * <p>
+ * A parser keeps no state of a running parse, all state lives in a per
+ * call {@link ParseContext}. Thus a single instance may be shared, and used
+ * concurrently by several threads.
  *
  * @author berni3
  */
@@ -61,16 +83,36 @@ public class TgfParser {
     }
 
     /**
-     * Current parsing state.
+     * Tokens for line comments.
      */
-    private ParsingTgfStatus parsingTgfStatus = ParsingTgfStatus.start;
+    final List<String> commentsList = Collections.unmodifiableList(Arrays.asList("--", "'"));
+
     /**
-     * Tokens for line comments.
+     * Initial size of the char buffer used for reading lines.
      */
-    final List<String> commentsList = Arrays.asList("--", "'");
+    static final int INITIAL_BUFFER_SIZE = 8192;
+    /**
+     * Maximum size of a char buffer kept for reuse by a thread.
+     */
+    static final int MAX_POOLED_BUFFER_SIZE = 1 << 20;
+    /**
+     * Per thread pool of a single char buffer for reading lines.
+     * <p>
+     * A parse takes the buffer out of the pool, and puts it back when done,
+     * so that a nested parse on the same thread gets a buffer of its own.
+     */
+    private static final ThreadLocal<char[]> POOLED_BUFFER = new ThreadLocal<>();
+    /**
+     * Maximum size of a single memory mapped segment of a file.
+     */
+    int maxMappedSegmentSize = Integer.MAX_VALUE;
 
     /**
      * Parse tgf creating a {@link TgfModel}.
+     * <p>
+     * Lines are read into a reusable char buffer, and tokenized in place,
+     * without creating an intermediate {@link String} per line. Equal ids,
+     * names, and labels share one {@link String} instance.
      *
      * @param rr
      * @return
@@ -78,31 +120,725 @@ public class TgfParser {
      */
     public TgfModel parse(Reader rr) throws IOException {
         final TgfModel tgfModel = new TgfModel();
+        parse(rr, new TgfModelBuilderListener(tgfModel), new TgfSymbolTable());
+        return tgfModel;
+    }
 
-        parsingTgfStatus = ParsingTgfStatus.parsingNodes;
-
-        try (BufferedReader r = new BufferedReader(rr)) {
-            for (String line; (line = r.readLine()) != null;) {
-                final TgfTokenValue tgfToken = tokenize(parsingTgfStatus, line);
-                if (tgfToken.token == TgfToken.empty) {
-                    continue;
-                } else if (tgfToken.token == TgfToken.hashMark) {
-                    switch (parsingTgfStatus) {
-                        case parsingNodes:
-                            parsingTgfStatus = ParsingTgfStatus.parsingEdges;
-                            break;
-                        default:
-                        // noop
+    /**
+     * Parse tgf reporting each parsed record to a
+     * {@link ITgfParseListener}, without building a {@link TgfModel}.
+     *
+     * @param rr
+     * @param listener
+     * @throws IOException
+     */
+    public void parse(Reader rr, ITgfParseListener listener) throws IOException {
+        parse(rr, listener, null);
+    }
+
+    private void parse(Reader rr, ITgfParseListener listener, TgfSymbolTable symbolTable) throws IOException {
+        final ParseContext ctx = new ParseContext(listener);
+        final CharArrayScanner scanner = new CharArrayScanner(takePooledBuffer());
+        scanner.symbolTable = symbolTable;
+
+        try (Reader r = rr) {
+            int filled = 0;
+            for (int n; (n = r.read(scanner.cs, filled, scanner.cs.length - filled)) != -1;) {
+                filled += n;
+                final char[] buf = scanner.cs;
+                int lineStart = 0;
+                for (int i = 0; i < filled; i++) {
+                    final char c = buf[i];
+                    if (c == '\n' || c == '\r') {
+                        ctx.handleLine(scanner, lineStart, i);
+                        lineStart = i + 1;
                     }
-                } else if (tgfToken.token == TgfToken.node) {
-                    tgfModel.addNode(tgfToken.tgfNode);
-                } else if (tgfToken.token == TgfToken.edge) {
-                    tgfModel.addEdge(tgfToken.tgfEdge);
-                } else {
+                }
+                // keep the incomplete last line at the start of the buffer
+                final int remaining = filled - lineStart;
+                if (remaining == buf.length) {
+                    scanner.cs = Arrays.copyOf(buf, buf.length * 2);
+                } else if (lineStart > 0) {
+                    System.arraycopy(buf, lineStart, buf, 0, remaining);
+                }
+                filled = remaining;
+            }
+            if (filled > 0) {
+                ctx.handleLine(scanner, 0, filled);
+            }
+            listener.onEnd();
+        } finally {
+            returnPooledBuffer(scanner.cs);
+        }
+    }
+
+    private static char[] takePooledBuffer() {
+        final char[] buf = POOLED_BUFFER.get();
+        if (buf == null) {
+            return new char[INITIAL_BUFFER_SIZE];
+        }
+        POOLED_BUFFER.remove();
+        return buf;
+    }
+
+    private static void returnPooledBuffer(char[] buf) {
+        if (buf.length <= MAX_POOLED_BUFFER_SIZE) {
+            POOLED_BUFFER.set(buf);
+        }
+    }
+
+    /**
+     * Parse an UTF-8 encoded tgf file creating a {@link TgfModel}.
+     * <p>
+     * The file is memory mapped, and lines, and fields are located directly
+     * on the UTF-8 bytes. Only the id, and label slices are decoded, once
+     * per distinct value.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public TgfModel parse(Path path) throws IOException {
+        final TgfModel tgfModel = new TgfModel();
+        parse(path, new TgfModelBuilderListener(tgfModel), new TgfSymbolTable());
+        return tgfModel;
+    }
+
+    /**
+     * Parse an UTF-8 encoded tgf file reporting each parsed record to a
+     * {@link ITgfParseListener}, without building a {@link TgfModel}.
+     *
+     * @param path
+     * @param listener
+     * @throws IOException
+     */
+    public void parse(Path path, ITgfParseListener listener) throws IOException {
+        parse(path, listener, null);
+    }
+
+    private void parse(Path path, ITgfParseListener listener, TgfSymbolTable symbolTable) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            parse(mapLineAlignedSegments(fc, maxMappedSegmentSize), listener, symbolTable);
+        }
+    }
+
+    private void parse(List<ByteBuffer> segments, ITgfParseListener listener, TgfSymbolTable symbolTable) {
+        scanLines(segments, symbolTable, new ParseContext(listener));
+        listener.onEnd();
+    }
+
+    /**
+     * Pass each line of the segments to a {@link ILineHandler}.
+     */
+    private static void scanLines(List<ByteBuffer> segments, TgfSymbolTable symbolTable, ILineHandler ctx) {
+        for (ByteBuffer segment : segments) {
+            final ByteBufferScanner scanner = new ByteBufferScanner(segment);
+            scanner.symbolTable = symbolTable;
+            final int limit = segment.limit();
+            int lineStart = 0;
+            for (int i = 0; i < limit; i++) {
+                final byte b = segment.get(i);
+                if (b == '\n' || b == '\r') {
+                    ctx.handleLine(scanner, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < limit) {
+                ctx.handleLine(scanner, lineStart, limit);
+            }
+        }
+    }
+
+    /**
+     * Parse an UTF-8 encoded tgf file creating a {@link TgfNumericGraph}.
+     * <p>
+     * Ids in canonical decimal form are parsed straight into {@code long}s,
+     * without creating a {@link String}, other ids fall back to strings.
+     * Thus any tgf file may be parsed, but files with numeric ids, like
+     * SNAP edge lists, are parsed fastest.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public TgfNumericGraph parseNumeric(Path path) throws IOException {
+        final TgfNumericGraph.Builder builder = new TgfNumericGraph.Builder();
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            scanLines(mapLineAlignedSegments(fc, maxMappedSegmentSize), new TgfSymbolTable(),
+                    new NumericParseContext(builder));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parse an UTF-8 encoded tgf file creating a {@link TgfModel}, tokenizing
+     * the edge section in parallel on the common {@link ForkJoinPool}.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     * @see #parseParallel(Path, ForkJoinPool)
+     */
+    public TgfModel parseParallel(Path path) throws IOException {
+        return parseParallel(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse an UTF-8 encoded tgf file creating a {@link TgfModel}, tokenizing
+     * the edge section in parallel.
+     * <p>
+     * The node section is parsed sequentially. The edge section following
+     * the {@code #} line is split into byte ranges aligned to line
+     * boundaries, which are tokenized as tasks of {@code pool}. Each task
+     * shares the interned strings of the node section, and interns edge
+     * labels in a task local symbol table. The edges of
+     * all ranges are added in file order, thus the resulting model equals
+     * the model of {@link #parse(Path)}.
+     *
+     * @param path
+     * @param pool
+     * @return
+     * @throws IOException
+     */
+    public TgfModel parseParallel(Path path, ForkJoinPool pool) throws IOException {
+        final TgfModel tgfModel = new TgfModel();
+        final List<ByteBuffer> segments = mapLineAlignedSegments(path, maxMappedSegmentSize);
+        final TgfSymbolTable nodeSymbolTable = new TgfSymbolTable();
+        StreamSupport.stream(TgfRecordSpliterator.ofNodes(commentsList, segments, nodeSymbolTable), false)
+                .forEach(tgfModel::addNode);
+        final List<TgfEdge> tgfEdgeList;
+        try {
+            tgfEdgeList = pool.submit(() -> StreamSupport.stream(
+                    TgfRecordSpliterator.ofEdges(commentsList, segments, minParallelChunkSize, nodeSymbolTable), true)
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+        tgfEdgeList.forEach(tgfModel::addEdge);
+        return tgfModel;
+    }
+
+    /**
+     * Parse an UTF-8 encoded file of concatenated tgf documents, creating a
+     * {@link TgfModel} per document, parsing the documents in parallel on
+     * the common {@link ForkJoinPool}.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     * @see #parseDocuments(Path, ForkJoinPool)
+     */
+    public List<TgfModel> parseDocuments(Path path) throws IOException {
+        return parseDocuments(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse an UTF-8 encoded file of concatenated tgf documents, creating a
+     * {@link TgfModel} per document.
+     * <p>
+     * A multi module {@code mvn dependency:tree -DoutputType=tgf} writes one
+     * document of nodes, {@code #}, and edges per module. A document ends
+     * only where the node section of the next document, followed by its
+     * own {@code #} line, starts. The node section starts at the first line
+     * of an edge section, which has a single field, or whose second field
+     * is not a node id of its document, unless a later edge of the document
+     * follows. Thus a dangling edge does not split a document. A node name
+     * being a node id of the preceding document may hide a boundary, use
+     * {@link #parseDocuments(Path, String, ForkJoinPool)} with a separator
+     * line in this case.
+     * <p>
+     * The document boundaries are found in a sequential pass, decoding node
+     * ids only. The documents are parsed independently as tasks of
+     * {@code pool}, each interning its strings in its own symbol table.
+     *
+     * @param path
+     * @param pool
+     * @return models in document order
+     * @throws IOException
+     * @see TgfModel#mergeDocuments(List)
+     */
+    public List<TgfModel> parseDocuments(Path path, ForkJoinPool pool) throws IOException {
+        return parseDocuments(path, null, pool);
+    }
+
+    /**
+     * Parse an UTF-8 encoded file of tgf documents separated by a separator
+     * line, creating a {@link TgfModel} per document.
+     * <p>
+     * A line equal to {@code documentSeparator}, ignoring leading, and
+     * trailing blanks, ends a document, and belongs to no document.
+     *
+     * @param path
+     * @param documentSeparator separator line, or null to derive the
+     * document boundaries as by {@link #parseDocuments(Path, ForkJoinPool)}
+     * @param pool
+     * @return models in document order
+     * @throws IOException
+     * @throws IllegalArgumentException if the separator is blank, a comment,
+     * or starts with {@code #}
+     */
+    public List<TgfModel> parseDocuments(Path path, String documentSeparator, ForkJoinPool pool) throws IOException {
+        if (documentSeparator != null) {
+            final String separator = documentSeparator.trim();
+            if (separator.isEmpty() || separator.charAt(0) == '#'
+                    || commentsList.stream().anyMatch(separator::startsWith)) {
+                throw new IllegalArgumentException("Invalid document separator \"" + documentSeparator + "\"");
+            }
+        }
+        final List<List<ByteBuffer>> documents = TgfDocumentSplitter.split(commentsList, documentSeparator,
+                mapLineAlignedSegments(path, maxMappedSegmentSize));
+        try {
+            return pool.submit(() -> documents.parallelStream()
+                    .map(document -> {
+                        final TgfModel tgfModel = new TgfModel();
+                        parse(document, new TgfModelBuilderListener(tgfModel), new TgfSymbolTable());
+                        return tgfModel;
+                    })
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Minimum size in bytes of an edge chunk of
+     * {@link #parseParallel(Path, ForkJoinPool)}, and of split edge streams.
+     */
+    int minParallelChunkSize = 1 << 20;
+
+    /**
+     * Create a lazy stream of the nodes of an UTF-8 encoded tgf file.
+     * <p>
+     * Nodes are tokenized while the stream is consumed, and reading stops
+     * at the {@code #} line, or as soon as a short-circuiting operation is
+     * satisfied.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public Stream<TgfNode> nodeStream(Path path) throws IOException {
+        final List<ByteBuffer> segments = mapLineAlignedSegments(path, maxMappedSegmentSize);
+        return StreamSupport.stream(() -> TgfRecordSpliterator.ofNodes(commentsList, segments, null),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE,
+                false);
+    }
+
+    /**
+     * Create a lazy stream of the edges of an UTF-8 encoded tgf file.
+     * <p>
+     * Edges are tokenized while the stream is consumed. The edge section is
+     * split at line boundaries, thus a {@link Stream#parallel()} stream
+     * tokenizes edges in parallel.
+     * <p>
+     * Streams do not intern strings, thus consuming them needs constant
+     * memory.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public Stream<TgfEdge> edgeStream(Path path) throws IOException {
+        final List<ByteBuffer> segments = mapLineAlignedSegments(path, maxMappedSegmentSize);
+        return StreamSupport.stream(() -> TgfRecordSpliterator.ofEdges(commentsList, segments, minParallelChunkSize, null),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE,
+                false);
+    }
+
+    /**
+     * Size of the buffer of a single asynchronous read.
+     */
+    int asyncReadBufferSize = 1 << 16;
+
+    /**
+     * Parse an UTF-8 encoded tgf file asynchronously.
+     * <p>
+     * The file is closed when parsing completes.
+     *
+     * @param path
+     * @return future completed by the {@link TgfModel}, or exceptionally by
+     * any failure of opening, reading, or parsing the file
+     * @see #parseAsync(AsynchronousFileChannel)
+     */
+    public CompletableFuture<TgfModel> parseAsync(Path path) {
+        final AsynchronousFileChannel afc;
+        try {
+            afc = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException | RuntimeException ex) {
+            final CompletableFuture<TgfModel> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            return failed;
+        }
+        return parseAsync(afc).whenComplete((tgfModel, ex) -> {
+            try {
+                afc.close();
+            } catch (IOException ioex) {
+                // ignore, file was read completely, or failed already
+            }
+        });
+    }
+
+    /**
+     * Parse UTF-8 encoded tgf from an asynchronous file channel.
+     * <p>
+     * Chunks are read by {@link CompletionHandler} callbacks, and fed into an
+     * {@link IncrementalTokenizer}, thus no thread waits for reads to
+     * complete. The channel is not closed.
+     *
+     * @param afc
+     * @return future completed by the {@link TgfModel}, or exceptionally by
+     * any failure of reading, or parsing
+     */
+    public CompletableFuture<TgfModel> parseAsync(AsynchronousFileChannel afc) {
+        final CompletableFuture<TgfModel> future = new CompletableFuture<>();
+        final TgfModel tgfModel = new TgfModel();
+        final IncrementalTokenizer tokenizer = new IncrementalTokenizer(
+                new TgfModelBuilderListener(tgfModel), new TgfSymbolTable());
+        final ByteBuffer readBuffer = ByteBuffer.allocate(asyncReadBufferSize);
+
+        afc.read(readBuffer, 0L, 0L, new CompletionHandler<Integer, Long>() {
+            @Override
+            public void completed(Integer n, Long position) {
+                try {
+                    if (n < 0) {
+                        tokenizer.end();
+                        future.complete(tgfModel);
+                        return;
+                    }
+                    readBuffer.flip();
+                    tokenizer.feed(readBuffer);
+                    readBuffer.clear();
+                    final long nextPosition = position + n;
+                    afc.read(readBuffer, nextPosition, nextPosition, this);
+                } catch (RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void failed(Throwable exc, Long position) {
+                future.completeExceptionally(exc);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Tokenizer of UTF-8 encoded tgf fed in chunks of arbitrary size.
+     * <p>
+     * Complete lines of a chunk are tokenized right away. The bytes of an
+     * incomplete last line are kept, and tokenizing resumes when the next
+     * chunk completes the line.
+     */
+    class IncrementalTokenizer {
+
+        private final ParseContext ctx;
+        private final ByteBufferScanner scanner;
+        private int filled;
+
+        IncrementalTokenizer(ITgfParseListener listener, TgfSymbolTable symbolTable) {
+            this.ctx = new ParseContext(listener);
+            this.scanner = new ByteBufferScanner(ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+            this.scanner.symbolTable = symbolTable;
+        }
+
+        /**
+         * Tokenize all complete lines of the remaining bytes of {@code src}.
+         *
+         * @param src
+         */
+        void feed(ByteBuffer src) {
+            while (src.hasRemaining()) {
+                final ByteBuffer buf = scanner.bb;
+                final int n = Math.min(src.remaining(), buf.capacity() - filled);
+                final int scanFrom = filled;
+                buf.position(filled);
+                final ByteBuffer srcSlice = src.duplicate();
+                srcSlice.limit(srcSlice.position() + n);
+                buf.put(srcSlice);
+                src.position(src.position() + n);
+                filled += n;
+                int lineStart = 0;
+                for (int i = scanFrom; i < filled; i++) {
+                    final byte b = buf.get(i);
+                    if (b == '\n' || b == '\r') {
+                        ctx.handleLine(scanner, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                compact(lineStart);
+            }
+        }
+
+        /**
+         * Tokenize the remaining incomplete line, and signal the end.
+         */
+        void end() {
+            if (filled > 0) {
+                ctx.handleLine(scanner, 0, filled);
+                filled = 0;
+            }
+            ctx.listener.onEnd();
+        }
+
+        /**
+         * Move the incomplete line starting at {@code lineStart} to the start
+         * of the buffer, growing the buffer if the line fills it.
+         */
+        private void compact(int lineStart) {
+            final ByteBuffer buf = scanner.bb;
+            final int remaining = filled - lineStart;
+            if (remaining == buf.capacity()) {
+                final ByteBuffer grown = ByteBuffer.allocate(buf.capacity() * 2);
+                buf.clear();
+                grown.put(buf);
+                scanner.bb = grown;
+            } else if (lineStart > 0) {
+                System.arraycopy(buf.array(), lineStart, buf.array(), 0, remaining);
+            }
+            filled = remaining;
+        }
+    }
+
+    /**
+     * Map a file read-only into line aligned segments.
+     * <p>
+     * Mappings stay valid after the file channel is closed.
+     *
+     * @param path
+     * @param maxSegmentSize
+     * @return
+     * @throws IOException
+     * @see #mapLineAlignedSegments(FileChannel, int)
+     */
+    static List<ByteBuffer> mapLineAlignedSegments(Path path, int maxSegmentSize) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            return mapLineAlignedSegments(fc, maxSegmentSize);
+        }
+    }
+
+    /**
+     * @return index of the first line break in {@code [from..to)}, or
+     * {@code to} if there is none
+     */
+    static int indexOfLineBreak(ByteBuffer bb, int from, int to) {
+        while (from < to) {
+            final byte b = bb.get(from);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return index after the first line break at, or after {@code from},
+     * or {@code to} if there is none
+     */
+    static int nextLineStart(ByteBuffer bb, int from, int to) {
+        return from >= to ? to : Math.min(indexOfLineBreak(bb, from, to) + 1, to);
+    }
+
+    /**
+     * Map a file read-only into segments of at most
+     * {@code maxSegmentSize} bytes.
+     * <p>
+     * Each segment, except the last one, ends with a line break, so that no
+     * line spans two segments.
+     *
+     * @param fc
+     * @param maxSegmentSize
+     * @return
+     * @throws IOException if a single line exceeds {@code maxSegmentSize}
+     */
+    static List<ByteBuffer> mapLineAlignedSegments(FileChannel fc, int maxSegmentSize) throws IOException {
+        final List<ByteBuffer> segments = new ArrayList<>();
+        final long size = fc.size();
+        long position = 0;
+        while (position < size) {
+            final long remaining = size - position;
+            final int segmentSize = (int) Math.min(remaining, maxSegmentSize);
+            final MappedByteBuffer mbb = fc.map(FileChannel.MapMode.READ_ONLY, position, segmentSize);
+            int limit = segmentSize;
+            if (segmentSize < remaining) {
+                while (limit > 0 && mbb.get(limit - 1) != '\n' && mbb.get(limit - 1) != '\r') {
+                    limit--;
+                }
+                if (limit == 0) {
+                    throw new IOException(String.format("Line at position %d exceeds %d bytes", position, maxSegmentSize));
+                }
+                mbb.limit(limit);
+            }
+            segments.add(mbb);
+            position += limit;
+        }
+        return segments;
+    }
+
+    /**
+     * Handler of single lines of tgf input.
+     */
+    interface ILineHandler {
+
+        /**
+         * Handle the line stored in {@code [from..to)} of the scanner.
+         *
+         * @param scanner
+         * @param from
+         * @param to
+         */
+        void handleLine(TgfScanner scanner, int from, int to);
+    }
+
+    /**
+     * State of a single parse.
+     */
+    class ParseContext implements ILineHandler {
+
+        final ITgfParseListener listener;
+        final TgfTokenValue tgfToken = new TgfTokenValue();
+        ParsingTgfStatus parsingTgfStatus = ParsingTgfStatus.parsingNodes;
+
+        ParseContext(ITgfParseListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Tokenize a single line, and report its value to the
+         * {@link ITgfParseListener}.
+         */
+        @Override
+        public void handleLine(TgfScanner scanner, int from, int to) {
+            scanner.tokenize(parsingTgfStatus, commentsList, from, to, tgfToken);
+            if (tgfToken.token == TgfToken.empty) {
+                // noop
+            } else if (tgfToken.token == TgfToken.hashMark) {
+                switch (parsingTgfStatus) {
+                    case parsingNodes:
+                        parsingTgfStatus = ParsingTgfStatus.parsingEdges;
+                        listener.onSectionSeparator();
+                        break;
+                    default:
                     // noop
                 }
+            } else if (tgfToken.token == TgfToken.node) {
+                listener.onNode(tgfToken.tgfNode);
+            } else if (tgfToken.token == TgfToken.edge) {
+                listener.onEdge(tgfToken.tgfEdge);
+            } else {
+                // noop
+            }
+        }
+    }
+
+    /**
+     * State of a single parse into a {@link TgfNumericGraph}.
+     * <p>
+     * Lines are tokenized like by
+     * {@link TgfScanner#tokenize(ParsingTgfStatus, List, int, int, TgfTokenValue)},
+     * but ids are passed as index ranges to the builder.
+     */
+    class NumericParseContext implements ILineHandler {
+
+        final TgfNumericGraph.Builder builder;
+        ParsingTgfStatus parsingTgfStatus = ParsingTgfStatus.parsingNodes;
+
+        NumericParseContext(TgfNumericGraph.Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void handleLine(TgfScanner scanner, int from, int to) {
+            from = scanner.trimStart(from, to);
+            to = scanner.trimEnd(from, to);
+            if (from == to || scanner.isComment(commentsList, from, to)) {
+                // noop
+            } else if (scanner.charAt(from) == '#') {
+                parsingTgfStatus = ParsingTgfStatus.parsingEdges;
+            } else if (parsingTgfStatus == ParsingTgfStatus.parsingNodes) {
+                final int idEnd = scanner.indexOfBlank(from, to);
+                final String nodeName = scanner.trimmedString(scanner.skipBlanks(idEnd, to), to);
+                builder.addNode(builder.id(scanner, from, idEnd), nodeName);
+            } else {
+                final int fromEnd = scanner.indexOfBlank(from, to);
+                final int toStart = scanner.skipBlanks(fromEnd, to);
+                final int toEnd = scanner.indexOfBlank(toStart, to);
+                final int fromId = builder.id(scanner, from, fromEnd);
+                final int toId = builder.id(scanner, toStart, toEnd);
+                final String edgeLabel = scanner.trimmedString(scanner.skipBlanks(toEnd, to), to);
+                builder.addEdge(fromId, toId, edgeLabel);
             }
-            return tgfModel;
+        }
+    }
+
+    /**
+     * Receiver of parsed tgf records, in the order of the tgf input.
+     */
+    public interface ITgfParseListener {
+
+        /**
+         * A node line was parsed.
+         *
+         * @param tgfNode
+         */
+        void onNode(TgfNode tgfNode);
+
+        /**
+         * The {@code #} line separating nodes from edges was parsed.
+         */
+        void onSectionSeparator();
+
+        /**
+         * An edge line was parsed.
+         *
+         * @param tgfEdge
+         */
+        void onEdge(TgfEdge tgfEdge);
+
+        /**
+         * The end of the tgf input was reached.
+         */
+        void onEnd();
+    }
+
+    /**
+     * Listener adding all parsed records to a {@link TgfModel}.
+     */
+    static class TgfModelBuilderListener implements ITgfParseListener {
+
+        final TgfModel tgfModel;
+
+        TgfModelBuilderListener(TgfModel tgfModel) {
+            this.tgfModel = tgfModel;
+        }
+
+        @Override
+        public void onNode(TgfNode tgfNode) {
+            tgfModel.addNode(tgfNode);
+        }
+
+        @Override
+        public void onSectionSeparator() {
+            // noop
+        }
+
+        @Override
+        public void onEdge(TgfEdge tgfEdge) {
+            tgfModel.addEdge(tgfEdge);
+        }
+
+        @Override
+        public void onEnd() {
+            // noop
         }
     }
 
@@ -118,32 +854,44 @@ public class TgfParser {
     }
 
     /**
-     * Encapsulate a tgf TgfToken and its value
+     * Encapsulate a tgf TgfToken and its value.
+     * <p>
+     * An instance is mutable, and reused for all lines of a single parse.
      */
     static class TgfTokenValue {
 
-        final TgfToken token;
-        final TgfEdge tgfEdge;
-        final TgfNode tgfNode;
+        TgfToken token;
+        TgfEdge tgfEdge;
+        TgfNode tgfNode;
 
-        public TgfTokenValue(TgfToken token) {
-            this(token, null, null);
+        public TgfTokenValue() {
+            this(TgfToken.empty, null, null);
         }
 
-        public TgfTokenValue(TgfNode tgfNode) {
-            this(TgfToken.node, tgfNode, null);
+        private TgfTokenValue(TgfToken token, TgfNode tgfNode, TgfEdge tgfEdge) {
+            this.token = token;
+            this.tgfNode = tgfNode;
+            this.tgfEdge = tgfEdge;
         }
 
-        public TgfTokenValue(TgfEdge tgfEdge) {
-            this(TgfToken.edge, null, tgfEdge);
+        TgfTokenValue set(TgfToken token) {
+            return set(token, null, null);
         }
 
-        private TgfTokenValue(TgfToken token, TgfNode tgfNode, TgfEdge tgfEdge) {
+        TgfTokenValue set(TgfNode tgfNode) {
+            return set(TgfToken.node, tgfNode, null);
+        }
+
+        TgfTokenValue set(TgfEdge tgfEdge) {
+            return set(TgfToken.edge, null, tgfEdge);
+        }
+
+        private TgfTokenValue set(TgfToken token, TgfNode tgfNode, TgfEdge tgfEdge) {
             this.token = token;
             this.tgfNode = tgfNode;
             this.tgfEdge = tgfEdge;
+            return this;
         }
-
     }
 
     /**
@@ -154,70 +902,8 @@ public class TgfParser {
      * @return {@link TgfTokenValue} of a line
      */
     TgfTokenValue tokenize(ParsingTgfStatus parsingTgfStatus, String line) {
-        final TgfToken token;
-        TgfEdge tgfEdge = null;
-        TgfNode tgfNode = null;
-        String trimmedLine = line.trim();
-
-        if (trimmedLine.isEmpty()
-                || commentsList.contains(trimmedLine)) {
-            token = TgfToken.empty;
-        } else if (trimmedLine.startsWith("#")) {
-            token = TgfToken.hashMark;
-        } else {
-            switch (parsingTgfStatus) {
-                // nodeId nodeLabel
-                case parsingNodes: {
-                    final String[] splitted = trimmedLine.split(" +", 2);
-                    final String nodeId = splitted[0].trim();
-                    final String nodeLabel;
-                    if (splitted.length > 1) {
-                        nodeLabel = splitted[1].trim();
-                    } else {
-                        nodeLabel = "";
-                    }
-                    token = TgfToken.node;
-                    tgfNode = new TgfNode(nodeId, nodeLabel);
-                }
-                break;
-                case parsingEdges: // fromNodeId toNodeId [label]
-                {
-                    final String[] split = trimmedLine.split(" +", 3);
-                    final String fromNodeId = split[0].trim();
-                    final String toNodeId = split[1].trim();
-                    final String edgeLabel;
-                    if (split.length > 2) {
-                        edgeLabel = split[2].trim();
-                    } else {
-                        edgeLabel = "";
-                    }
-                    token = TgfToken.edge;
-                    tgfEdge = new TgfEdge(fromNodeId, toNodeId, edgeLabel);
-                }
-                break;
-                default:
-                    token = TgfToken.empty;
-            }
-        }
-        final TgfTokenValue result;
-        switch (token) {
-            case empty:
-                result = new TgfTokenValue(token);
-                break;
-            case hashMark:
-                result = new TgfTokenValue(token);
-                break;
-            case node:
-                result = new TgfTokenValue(tgfNode);
-                break;
-            case edge:
-                result = new TgfTokenValue(tgfEdge);
-                break;
-            default:
-                result = new TgfTokenValue(TgfToken.empty);
-                break;
-        }
-        return result;
+        final char[] cs = line.toCharArray();
+        return new CharArrayScanner(cs).tokenize(parsingTgfStatus, commentsList, 0, cs.length, new TgfTokenValue());
     }
 
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reachability, and path queries on a {@link TgfModel}.
+ * <p>
+ * Queries run breadth first over the out-, or in-edges of a
+ * {@link TgfCompactGraph}, marking visited nodes in a {@code long[]}
+ * bitset. A query of several nodes is answered by one search starting at
+ * all of them. Path queries search from both ends, expanding the smaller
+ * frontier first.
+ * <p>
+ * Results are node ids in model order, followed by ids only referenced by
+ * edges. Unknown node ids throw {@link IllegalArgumentException}.
+ *
+ * @author berni3
+ */
+public final class TgfReachability {
+
+    final TgfCompactGraph graph;
+
+    private TgfReachability(TgfCompactGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Create the queries of a {@link TgfModel}.
+     *
+     * @param tgfModel
+     * @return
+     */
+    public static TgfReachability of(TgfModel tgfModel) {
+        return of(TgfCompactGraph.of(tgfModel));
+    }
+
+    static TgfReachability of(TgfCompactGraph graph) {
+        return new TgfReachability(graph);
+    }
+
+    /**
+     * @param nodeId
+     * @return name of the node, or null if the node is unknown, or only
+     * referenced by edges
+     */
+    public String nodeName(String nodeId) {
+        final int v = graph.nodeIndex(nodeId);
+        return v < 0 ? null : graph.nodeName(v);
+    }
+
+    /**
+     * @param nodeIds
+     * @return ids of the nodes reachable by at least one edge from any of
+     * {@code nodeIds}, i.e. what they transitively depend on
+     */
+    public List<String> descendants(String... nodeIds) {
+        return nodeIdsOf(reachable(nodeIndexes(nodeIds), true));
+    }
+
+    /**
+     * @param nodeIds
+     * @return ids of the nodes reaching any of {@code nodeIds} by at least
+     * one edge, i.e. what transitively depends on them
+     */
+    public List<String> ancestors(String... nodeIds) {
+        return nodeIdsOf(reachable(nodeIndexes(nodeIds), false));
+    }
+
+    /**
+     * Find a path of fewest edges.
+     *
+     * @param fromId
+     * @param toId
+     * @return ids of the nodes of the path, starting with {@code fromId},
+     * ending with {@code toId}, or an empty list if there is no path
+     */
+    public List<String> path(String fromId, String toId) {
+        final int from = nodeIndex(fromId);
+        final int to = nodeIndex(toId);
+        if (from == to) {
+            return Collections.singletonList(fromId);
+        }
+        final Side forward = new Side(graph.nodeCount(), from);
+        final Side backward = new Side(graph.nodeCount(), to);
+        while (forward.size > 0 && backward.size > 0) {
+            final int meet = forward.size <= backward.size
+                    ? expand(forward, backward, true)
+                    : expand(backward, forward, false);
+            if (meet >= 0) {
+                return pathOf(from, to, meet, forward.parents, backward.parents);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Expand the frontier of one side by one level.
+     *
+     * @return node visited by both sides, or -1
+     */
+    private int expand(Side side, Side other, boolean forward) {
+        int nextSize = 0;
+        for (int i = 0; i < side.size; i++) {
+            final int u = side.frontier[i];
+            final int start = forward ? graph.outStart(u) : graph.inStart(u);
+            final int end = forward ? graph.outEnd(u) : graph.inEnd(u);
+            for (int slot = start; slot < end; slot++) {
+                final int w = forward ? graph.outTarget(slot) : graph.inSource(slot);
+                if (isSet(side.visited, w)) {
+                    continue;
+                }
+                set(side.visited, w);
+                side.parents[w] = u;
+                if (isSet(other.visited, w)) {
+                    return w;
+                }
+                side.next[nextSize++] = w;
+            }
+        }
+        final int[] frontier = side.frontier;
+        side.frontier = side.next;
+        side.next = frontier;
+        side.size = nextSize;
+        return -1;
+    }
+
+    private List<String> pathOf(int from, int to, int meet, int[] forwardParents, int[] backwardParents) {
+        final List<String> path = new ArrayList<>();
+        for (int v = meet; v != from; v = forwardParents[v]) {
+            path.add(graph.nodeId(v));
+        }
+        path.add(graph.nodeId(from));
+        Collections.reverse(path);
+        for (int v = meet; v != to;) {
+            v = backwardParents[v];
+            path.add(graph.nodeId(v));
+        }
+        return path;
+    }
+
+    /**
+     * Search breadth first from all sources at once.
+     *
+     * @param sources node indexes
+     * @param forward follow out-edges if true, else in-edges
+     * @return bitset of the nodes reachable by at least one edge
+     */
+    long[] reachable(int[] sources, boolean forward) {
+        final int n = graph.nodeCount();
+        final long[] visited = new long[words(n)];
+        // a source reached again is queued twice
+        final int[] queue = new int[n + sources.length];
+        int tail = 0;
+        for (int source : sources) {
+            queue[tail++] = source;
+        }
+        for (int head = 0; head < tail; head++) {
+            final int u = queue[head];
+            final int start = forward ? graph.outStart(u) : graph.inStart(u);
+            final int end = forward ? graph.outEnd(u) : graph.inEnd(u);
+            for (int slot = start; slot < end; slot++) {
+                final int w = forward ? graph.outTarget(slot) : graph.inSource(slot);
+                if (!isSet(visited, w)) {
+                    set(visited, w);
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return visited;
+    }
+
+    private List<String> nodeIdsOf(long[] bitset) {
+        final List<String> nodeIds = new ArrayList<>();
+        for (int w = 0; w < bitset.length; w++) {
+            long word = bitset[w];
+            while (word != 0) {
+                nodeIds.add(graph.nodeId((w << 6) + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+        return nodeIds;
+    }
+
+    private int[] nodeIndexes(String[] nodeIds) {
+        final int[] nodeIndexes = new int[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++) {
+            nodeIndexes[i] = nodeIndex(nodeIds[i]);
+        }
+        return nodeIndexes;
+    }
+
+    private int nodeIndex(String nodeId) {
+        final int v = graph.nodeIndex(nodeId);
+        if (v < 0) {
+            throw new IllegalArgumentException("Unknown node " + nodeId);
+        }
+        return v;
+    }
+
+    /**
+     * State of one side of a path search.
+     */
+    private static final class Side {
+
+        final long[] visited;
+        /**
+         * Node each visited node was reached from.
+         */
+        final int[] parents;
+        int[] frontier;
+        int[] next;
+        int size;
+
+        Side(int n, int start) {
+            this.visited = new long[words(n)];
+            this.parents = new int[n];
+            this.frontier = new int[n];
+            this.next = new int[n];
+            this.frontier[0] = start;
+            this.size = 1;
+            set(visited, start);
+        }
+    }
+
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static boolean isSet(long[] bitset, int bit) {
+        return (bitset[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    static void set(long[] bitset, int bit) {
+        bitset[bit >>> 6] |= 1L << bit;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.huberb.tgftools.TgfFlow.Publisher;
+import org.huberb.tgftools.TgfFlow.Subscriber;
+import org.huberb.tgftools.TgfFlow.Subscription;
+import org.huberb.tgftools.TgfFlow.TgfRecord;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+
+/**
+ * {@link Publisher} of the records of an UTF-8 encoded tgf file.
+ * <p>
+ * Each subscriber gets its own read of the file. Records are tokenized only
+ * while the subscriber has outstanding demand, thus a slow subscriber
+ * throttles reading. Records are delivered on tasks of an {@link Executor},
+ * one task at a time per subscriber.
+ * <p>
+ * Only failures of reading, or tokenizing the file are signalled by
+ * {@code onError}. A subscriber throwing from one of its methods cancels
+ * its subscription, it is not called anymore, and the mapped file is
+ * released.
+ *
+ * @author berni3
+ */
+public class TgfRecordPublisher implements Publisher<TgfRecord> {
+
+    private final TgfParser tgfParser;
+    private final Path path;
+    private final Executor executor;
+
+    /**
+     * Create a publisher delivering on the common {@link ForkJoinPool}.
+     *
+     * @param tgfParser
+     * @param path
+     */
+    public TgfRecordPublisher(TgfParser tgfParser, Path path) {
+        this(tgfParser, path, ForkJoinPool.commonPool());
+    }
+
+    public TgfRecordPublisher(TgfParser tgfParser, Path path, Executor executor) {
+        this.tgfParser = tgfParser;
+        this.path = path;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super TgfRecord> subscriber) {
+        final RecordSubscription subscription = new RecordSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        try {
+            subscription.segments = TgfParser.mapLineAlignedSegments(path, tgfParser.maxMappedSegmentSize);
+            subscription.nodes = TgfRecordSpliterator.ofNodes(tgfParser.commentsList, subscription.segments, null);
+        } catch (IOException ex) {
+            subscription.error = ex;
+        }
+        subscription.signal();
+    }
+
+    /**
+     * Subscription pulling records from the mapped file on demand.
+     */
+    class RecordSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super TgfRecord> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        /**
+         * Number of pending signals, the draining task runs while positive.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private volatile List<ByteBuffer> segments;
+        private volatile TgfRecordSpliterator<TgfNode> nodes;
+        private TgfRecordSpliterator<TgfEdge> edges;
+        private TgfRecord next;
+        private boolean done;
+
+        RecordSubscription(Subscriber<? super TgfRecord> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("non-positive subscription request: " + n);
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            signal();
+        }
+
+        /**
+         * Schedule draining, unless already scheduled.
+         */
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                release();
+                return;
+            }
+            if (nodes == null && error == null) {
+                return;
+            }
+            try {
+                while (error == null && !cancelled && demand.get() > 0 && advance()) {
+                    demand.decrementAndGet();
+                    final TgfRecord tgfRecord = next;
+                    next = null;
+                    if (!deliver(() -> subscriber.onNext(tgfRecord))) {
+                        return;
+                    }
+                }
+                if (error == null && !cancelled && next == null && !advance()) {
+                    release();
+                    deliver(subscriber::onComplete);
+                    return;
+                }
+            } catch (RuntimeException ex) {
+                // reading, or tokenizing failed
+                error = ex;
+            }
+            if (error != null) {
+                release();
+                deliver(() -> subscriber.onError(error));
+            } else if (cancelled) {
+                release();
+            }
+        }
+
+        /**
+         * Call the subscriber, a subscriber throwing cancels the
+         * subscription.
+         *
+         * @return false if the subscriber has thrown
+         */
+        private boolean deliver(Runnable signal) {
+            try {
+                signal.run();
+                return true;
+            } catch (RuntimeException ex) {
+                cancelled = true;
+                release();
+                return false;
+            }
+        }
+
+        /**
+         * Stop delivering, and drop the mapped file.
+         */
+        private void release() {
+            done = true;
+            segments = null;
+            nodes = null;
+            edges = null;
+            next = null;
+        }
+
+        /**
+         * Tokenize the next record, unless there is one pending.
+         *
+         * @return true if a record is pending
+         */
+        private boolean advance() {
+            if (next != null) {
+                return true;
+            }
+            if (edges == null) {
+                if (nodes.tryAdvance(n -> next = TgfRecord.node(n))) {
+                    return true;
+                }
+                edges = TgfRecordSpliterator.ofEdges(tgfParser.commentsList, segments, Integer.MAX_VALUE, null);
+                if (edges.edgeSectionFound) {
+                    next = TgfRecord.sectionSeparator();
+                    return true;
+                }
+            }
+            return edges.tryAdvance(e -> next = TgfRecord.edge(e));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfParser.ParsingTgfStatus;
+import org.huberb.tgftools.TgfParser.TgfToken;
+import org.huberb.tgftools.TgfParser.TgfTokenValue;
+import org.huberb.tgftools.TgfScanner.ByteBufferScanner;
+
+/**
+ * {@link Spliterator} of the nodes, or the edges of memory mapped tgf
+ * segments.
+ * <p>
+ * Records are tokenized lazily while advancing. A node spliterator stops at
+ * the {@code #} line, and does not split, as the end of the node section is
+ * not known in advance. An edge spliterator starts after the {@code #} line,
+ * and splits its byte range at line boundaries.
+ *
+ * @param <T> either {@link TgfNode}, or {@link TgfEdge}
+ * @author berni3
+ */
+class TgfRecordSpliterator<T> implements Spliterator<T> {
+
+    private final ParsingTgfStatus parsingTgfStatus;
+    private final List<String> commentsList;
+    private final List<ByteBuffer> segments;
+    private final int minSplitSize;
+    /**
+     * Parent of the symbol tables of split spliterators, may be null.
+     */
+    private final TgfSymbolTable parentSymbolTable;
+    /**
+     * Symbol table of this spliterator, may be null.
+     */
+    private final TgfSymbolTable symbolTable;
+    /**
+     * Index of the current segment.
+     */
+    private int index;
+    /**
+     * Index after the last segment of this spliterator.
+     */
+    private final int fence;
+    /**
+     * Position inside the current segment.
+     */
+    private int position;
+    /**
+     * End position inside the last segment.
+     */
+    private final int lastLimit;
+    /**
+     * An edge spliterator found the {@code #} line.
+     */
+    boolean edgeSectionFound;
+    private ByteBufferScanner scanner;
+    private final TgfTokenValue tgfToken = new TgfTokenValue();
+
+    private TgfRecordSpliterator(ParsingTgfStatus parsingTgfStatus, List<String> commentsList, List<ByteBuffer> segments, int minSplitSize,
+            TgfSymbolTable parentSymbolTable, TgfSymbolTable symbolTable,
+            int index, int position, int fence, int lastLimit) {
+        this.parsingTgfStatus = parsingTgfStatus;
+        this.commentsList = commentsList;
+        this.segments = segments;
+        this.minSplitSize = minSplitSize;
+        this.parentSymbolTable = parentSymbolTable;
+        this.symbolTable = symbolTable;
+        this.index = index;
+        this.position = position;
+        this.fence = fence;
+        this.lastLimit = lastLimit;
+    }
+
+    /**
+     * Create a spliterator of the nodes of the segments.
+     *
+     * @param commentsList
+     * @param segments line aligned segments of a tgf file
+     * @param symbolTable interns strings of nodes, may be null
+     * @return
+     */
+    static TgfRecordSpliterator<TgfNode> ofNodes(List<String> commentsList, List<ByteBuffer> segments, TgfSymbolTable symbolTable) {
+        final int fence = segments.size();
+        final int lastLimit = fence > 0 ? segments.get(fence - 1).limit() : 0;
+        return new TgfRecordSpliterator<>(ParsingTgfStatus.parsingNodes, commentsList, segments, Integer.MAX_VALUE,
+                null, symbolTable,
+                0, 0, fence, lastLimit);
+    }
+
+    /**
+     * Create a spliterator of the edges of the segments.
+     * <p>
+     * The segments are scanned for the {@code #} line, looking at the first
+     * non blank char of each line only.
+     *
+     * @param commentsList
+     * @param segments line aligned segments of a tgf file
+     * @param minSplitSize do not split byte ranges smaller than this
+     * @param parentSymbolTable if not null, each spliterator interns strings
+     * of edges in an own symbol table having this parent
+     * @return
+     */
+    static TgfRecordSpliterator<TgfEdge> ofEdges(List<String> commentsList, List<ByteBuffer> segments, int minSplitSize,
+            TgfSymbolTable parentSymbolTable) {
+        final int fence = segments.size();
+        final int lastLimit = fence > 0 ? segments.get(fence - 1).limit() : 0;
+        for (int i = 0; i < fence; i++) {
+            final ByteBuffer segment = segments.get(i);
+            final int limit = segment.limit();
+            for (int lineStart = 0; lineStart < limit;) {
+                final int lineEnd = TgfParser.indexOfLineBreak(segment, lineStart, limit);
+                int first = lineStart;
+                while (first < lineEnd && (segment.get(first) & 0xff) <= ' ') {
+                    first++;
+                }
+                lineStart = lineEnd + 1;
+                if (first < lineEnd && segment.get(first) == '#') {
+                    final TgfRecordSpliterator<TgfEdge> edges = new TgfRecordSpliterator<>(ParsingTgfStatus.parsingEdges, commentsList, segments, minSplitSize,
+                            parentSymbolTable, childSymbolTable(parentSymbolTable),
+                            i, Math.min(lineStart, limit), fence, lastLimit);
+                    edges.edgeSectionFound = true;
+                    return edges;
+                }
+            }
+        }
+        // no edge section
+        return new TgfRecordSpliterator<>(ParsingTgfStatus.parsingEdges, commentsList, segments, minSplitSize,
+                parentSymbolTable, null,
+                fence, 0, fence, lastLimit);
+    }
+
+    private static TgfSymbolTable childSymbolTable(TgfSymbolTable parentSymbolTable) {
+        return parentSymbolTable != null ? new TgfSymbolTable(parentSymbolTable) : null;
+    }
+
+    private int limitOf(int segmentIndex) {
+        return segmentIndex == fence - 1 ? lastLimit : segments.get(segmentIndex).limit();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (index < fence) {
+            final ByteBuffer segment = segments.get(index);
+            if (scanner == null || scanner.bb != segment) {
+                scanner = new ByteBufferScanner(segment);
+                scanner.symbolTable = symbolTable;
+            }
+            final int limit = limitOf(index);
+            while (position < limit) {
+                final int lineEnd = TgfParser.indexOfLineBreak(segment, position, limit);
+                scanner.tokenize(parsingTgfStatus, commentsList, position, lineEnd, tgfToken);
+                position = lineEnd + 1;
+                if (tgfToken.token == TgfToken.node) {
+                    action.accept((T) tgfToken.tgfNode);
+                    return true;
+                } else if (tgfToken.token == TgfToken.edge) {
+                    action.accept((T) tgfToken.tgfEdge);
+                    return true;
+                } else if (tgfToken.token == TgfToken.hashMark && parsingTgfStatus == ParsingTgfStatus.parsingNodes) {
+                    // end of node section
+                    index = fence;
+                    return false;
+                }
+            }
+            index += 1;
+            position = 0;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (parsingTgfStatus != ParsingTgfStatus.parsingEdges || index >= fence) {
+            return null;
+        }
+        if (fence - index > 1) {
+            // split segments
+            final int mid = (index + fence) >>> 1;
+            final TgfRecordSpliterator<T> prefix = new TgfRecordSpliterator<>(parsingTgfStatus, commentsList, segments, minSplitSize,
+                    parentSymbolTable, childSymbolTable(parentSymbolTable),
+                    index, position, mid, segments.get(mid - 1).limit());
+            index = mid;
+            position = 0;
+            return prefix;
+        }
+        // split the byte range of the last segment
+        final int remaining = lastLimit - position;
+        if (remaining < 2L * minSplitSize) {
+            return null;
+        }
+        final ByteBuffer segment = segments.get(index);
+        final int mid = TgfParser.nextLineStart(segment, position + remaining / 2, lastLimit);
+        if (mid >= lastLimit) {
+            return null;
+        }
+        final TgfRecordSpliterator<T> prefix = new TgfRecordSpliterator<>(parsingTgfStatus, commentsList, segments, minSplitSize,
+                parentSymbolTable, childSymbolTable(parentSymbolTable),
+                index, position, index + 1, mid);
+        position = mid;
+        return prefix;
+    }
+
+    /**
+     * @return number of remaining bytes, being an upper bound of the number
+     * of remaining records
+     */
+    @Override
+    public long estimateSize() {
+        long size = 0;
+        for (int i = index; i < fence; i++) {
+            size += Math.max(0, limitOf(i) - (i == index ? position : 0));
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
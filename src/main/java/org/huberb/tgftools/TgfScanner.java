@@ -0,0 +1,298 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfParser.ParsingTgfStatus;
+import org.huberb.tgftools.TgfParser.TgfToken;
+import org.huberb.tgftools.TgfParser.TgfTokenValue;
+
+/**
+ * Tokenizer of single TGF lines, working on index ranges of an underlying
+ * source.
+ * <p>
+ * A line is scanned once, fields are located by index, and only the
+ * resulting id, and label strings are created. Fields are separated by one
+ * or more blanks, and trimmed like {@link String#trim()}.
+ * <p>
+ * Sources are either chars, or UTF-8 encoded bytes. All chars relevant for
+ * tokenizing are ASCII, and each of them is encoded as a single byte in
+ * UTF-8, while bytes of multi byte sequences are always {@code >= 0x80}.
+ * Thus scanning bytes yields the same field boundaries as scanning the
+ * decoded chars.
+ *
+ * @author berni3
+ */
+abstract class TgfScanner {
+
+    /**
+     * Optional symbol table for interning the created strings.
+     */
+    TgfSymbolTable symbolTable;
+    /**
+     * Value of the last successful {@link #parseCanonicalLong(int, int)}.
+     */
+    long longValue;
+
+    /**
+     * @param i index into the source
+     * @return char, or unsigned byte at index {@code i}
+     */
+    abstract int charAt(int i);
+
+    /**
+     * @param from start index, inclusive
+     * @param to end index, exclusive
+     * @return decoded string of the source range
+     */
+    abstract String string(int from, int to);
+
+    /**
+     * @return largest value of {@link #charAt(int)} which equals the decoded
+     * char
+     */
+    abstract int maxDirectChar();
+
+    /**
+     * Tokenize a single input line stored in {@code [from..to)}.
+     *
+     * @param parsingTgfStatus current parsing state
+     * @param commentsList tokens for line comments
+     * @param from index of the first char of the line
+     * @param to index after the last char of the line
+     * @param tgfToken reusable token holder receiving the result
+     * @return {@code tgfToken} holding the token of the line
+     */
+    TgfTokenValue tokenize(ParsingTgfStatus parsingTgfStatus, List<String> commentsList,
+            int from, int to, TgfTokenValue tgfToken) {
+        // trim
+        while (from < to && charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to || isComment(commentsList, from, to)) {
+            return tgfToken.set(TgfToken.empty);
+        } else if (charAt(from) == '#') {
+            return tgfToken.set(TgfToken.hashMark);
+        }
+        switch (parsingTgfStatus) {
+            // nodeId nodeLabel
+            case parsingNodes: {
+                final int idEnd = indexOfBlank(from, to);
+                final String nodeId = trimmedString(from, idEnd);
+                final String nodeLabel = trimmedString(skipBlanks(idEnd, to), to);
+                return tgfToken.set(new TgfNode(nodeId, nodeLabel));
+            }
+            // fromNodeId toNodeId [label]
+            case parsingEdges: {
+                final int fromEnd = indexOfBlank(from, to);
+                final int toStart = skipBlanks(fromEnd, to);
+                final int toEnd = indexOfBlank(toStart, to);
+                final String fromNodeId = trimmedString(from, fromEnd);
+                final String toNodeId = trimmedString(toStart, toEnd);
+                final String edgeLabel = trimmedString(skipBlanks(toEnd, to), to);
+                return tgfToken.set(new TgfEdge(fromNodeId, toNodeId, edgeLabel));
+            }
+            default:
+                return tgfToken.set(TgfToken.empty);
+        }
+    }
+
+    /**
+     * Check if the trimmed line {@code [from..to)} is one of
+     * {@code commentsList}.
+     */
+    boolean isComment(List<String> commentsList, int from, int to) {
+        final int len = to - from;
+        for (int i = 0; i < commentsList.size(); i++) {
+            final String comment = commentsList.get(i);
+            if (comment.length() == len) {
+                int j = 0;
+                while (j < len && comment.charAt(j) == charAt(from + j)) {
+                    j++;
+                }
+                if (j == len) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return index of the first blank in {@code [from..to)}, or {@code to}
+     * if there is none
+     */
+    int indexOfBlank(int from, int to) {
+        while (from < to && charAt(from) != ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return index of the first non blank in {@code [from..to)}, or
+     * {@code to} if there is none
+     */
+    int skipBlanks(int from, int to) {
+        while (from < to && charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return {@code [from..to)} trimmed like {@link String#trim()}
+     */
+    String trimmedString(int from, int to) {
+        from = trimStart(from, to);
+        to = trimEnd(from, to);
+        if (from == to) {
+            return "";
+        }
+        return symbolTable != null ? symbolTable.intern(this, from, to) : string(from, to);
+    }
+
+    /**
+     * @return index of the first char {@code > ' '} in {@code [from..to)},
+     * or {@code to} if there is none
+     */
+    int trimStart(int from, int to) {
+        while (from < to && charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return index after the last char {@code > ' '} in {@code [from..to)},
+     * or {@code from} if there is none
+     */
+    int trimEnd(int from, int to) {
+        while (to > from && charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Parse {@code [from..to)} as decimal {@code long} in canonical form,
+     * i.e. as formatted by {@link Long#toString(long)}.
+     * <p>
+     * Ids like {@code 007}, {@code +7}, or {@code -0} are not canonical, as
+     * formatting their value would not yield the same id.
+     *
+     * @param from start index, inclusive
+     * @param to end index, exclusive
+     * @return true if parsed, the value is stored in {@link #longValue}
+     */
+    boolean parseCanonicalLong(int from, int to) {
+        final boolean negative = from < to && charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to || (charAt(i) == '0' && (negative || to - i > 1))) {
+            return false;
+        }
+        // accumulate negatively, like Long.parseLong, to reach Long.MIN_VALUE
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multmin = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            final int digit = charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        longValue = negative ? result : -result;
+        return true;
+    }
+
+    /**
+     * Scanner of a char array.
+     */
+    static final class CharArrayScanner extends TgfScanner {
+
+        char[] cs;
+
+        CharArrayScanner(char[] cs) {
+            this.cs = cs;
+        }
+
+        @Override
+        int charAt(int i) {
+            return cs[i];
+        }
+
+        @Override
+        String string(int from, int to) {
+            return new String(cs, from, to - from);
+        }
+
+        @Override
+        int maxDirectChar() {
+            return Character.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Scanner of UTF-8 encoded bytes of a {@link ByteBuffer}, using absolute
+     * indexes.
+     */
+    static final class ByteBufferScanner extends TgfScanner {
+
+        ByteBuffer bb;
+        private byte[] scratch = new byte[256];
+
+        ByteBufferScanner(ByteBuffer bb) {
+            this.bb = bb;
+        }
+
+        @Override
+        int charAt(int i) {
+            return bb.get(i) & 0xff;
+        }
+
+        @Override
+        String string(int from, int to) {
+            final int len = to - from;
+            if (scratch.length < len) {
+                scratch = new byte[Math.max(len, scratch.length * 2)];
+            }
+            for (int i = 0; i < len; i++) {
+                scratch[i] = bb.get(from + i);
+            }
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return {@code 0x7f}, as only ASCII bytes are single chars in UTF-8
+         */
+        @Override
+        int maxDirectChar() {
+            return 0x7f;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.huberb.tgftools.TgfCompactGraph.StringIndex;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+
+/**
+ * Binary snapshot of a {@link TgfModel}.
+ * <p>
+ * Layout, all counts, and indexes being unsigned LEB128 varints:
+ * <pre><code>
+ * magic        4 bytes "TGFS"
+ * version      varint
+ * strings      count, then per string its UTF-8 length, and bytes
+ * nodes        count, then per node the string reference of id, and name
+ * edges        count, then per edge the string reference of from, to, and label
+ * multiplicity 0, or 1 if the model deduplicates edges, followed by the
+ *              multiplicity of each edge (since version 2)
+ * </pre></code>
+ * A string reference is 0 for null, else the string index plus one.
+ * Each distinct string is stored once, thus a read model shares equal ids,
+ * names, and labels, like a parsed model.
+ *
+ * @author berni3
+ */
+public final class TgfSnapshot {
+
+    /**
+     * {@code "TGFS"} in ASCII.
+     */
+    static final int MAGIC = 0x54474653;
+    static final int VERSION = 2;
+
+    private TgfSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of a {@link TgfModel} to a file.
+     *
+     * @param tgfModel
+     * @param path
+     * @throws IOException
+     */
+    public static void write(TgfModel tgfModel, Path path) throws IOException {
+        try (OutputStream os = Files.newOutputStream(path)) {
+            write(tgfModel, os);
+        }
+    }
+
+    /**
+     * Write a snapshot of a {@link TgfModel} to a stream, leaving the
+     * stream open.
+     *
+     * @param tgfModel
+     * @param os
+     * @throws IOException
+     */
+    public static void write(TgfModel tgfModel, OutputStream os) throws IOException {
+        final StringIndex strings = new StringIndex();
+        final int[] nodes = new int[tgfModel.tgfNodeList.size() * 2];
+        int i = 0;
+        for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
+            nodes[i++] = reference(strings, tgfNode.id);
+            nodes[i++] = reference(strings, tgfNode.name);
+        }
+        final int[] edges = new int[tgfModel.tgfEdgeList.size() * 3];
+        i = 0;
+        for (TgfEdge tgfEdge : tgfModel.tgfEdgeList) {
+            edges[i++] = reference(strings, tgfEdge.from);
+            edges[i++] = reference(strings, tgfEdge.to);
+            edges[i++] = reference(strings, tgfEdge.label);
+        }
+
+        final VarIntOutput out = new VarIntOutput(os);
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        out.writeVarInt(strings.size);
+        for (int s = 0; s < strings.size; s++) {
+            final byte[] bytes = strings.keys[s].getBytes(StandardCharsets.UTF_8);
+            out.writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeVarInt(nodes.length / 2);
+        for (int n : nodes) {
+            out.writeVarInt(n);
+        }
+        out.writeVarInt(edges.length / 3);
+        for (int e : edges) {
+            out.writeVarInt(e);
+        }
+        out.writeVarInt(tgfModel.isDeduplicatingEdges() ? 1 : 0);
+        if (tgfModel.isDeduplicatingEdges()) {
+            for (int e = 0; e < tgfModel.tgfEdgeList.size(); e++) {
+                out.writeVarInt(tgfModel.multiplicity(e));
+            }
+        }
+        out.flush();
+    }
+
+    private static int reference(StringIndex strings, String s) {
+        return s == null ? 0 : strings.add(s) + 1;
+    }
+
+    /**
+     * Read a snapshot file, which is memory mapped while reading.
+     *
+     * @param path
+     * @return
+     * @throws IOException if the file is not a snapshot, is truncated, or
+     * exceeds 2 GB
+     */
+    public static TgfModel read(Path path) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = fc.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Snapshot %s exceeds %d bytes", path, Integer.MAX_VALUE));
+            }
+            return read(fc.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Read a snapshot from the remaining bytes of a buffer.
+     *
+     * @param bb
+     * @return
+     * @throws IOException if the bytes are not a snapshot, or are truncated
+     */
+    public static TgfModel read(ByteBuffer bb) throws IOException {
+        final ByteBuffer in = bb.duplicate();
+        try {
+            if (in.remaining() < 4 || in.getInt() != MAGIC) {
+                throw new IOException("Not a tgf snapshot");
+            }
+            final int version = readVarInt(in);
+            if (version < 1 || version > VERSION) {
+                throw new IOException(String.format("Unsupported tgf snapshot version %d", version));
+            }
+            // index 0 is the null reference
+            final String[] strings = new String[readCount(in, 1) + 1];
+            byte[] scratch = new byte[256];
+            for (int s = 1; s < strings.length; s++) {
+                final int len = readCount(in, 1);
+                if (in.hasArray()) {
+                    strings[s] = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+                    in.position(in.position() + len);
+                } else {
+                    if (scratch.length < len) {
+                        scratch = new byte[Math.max(len, scratch.length * 2)];
+                    }
+                    in.get(scratch, 0, len);
+                    strings[s] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+                }
+            }
+            final int nodeCount = readCount(in, 2);
+            final TgfModel tgfModel = new TgfModel(nodeCount);
+            for (int n = 0; n < nodeCount; n++) {
+                final String id = strings[readVarInt(in)];
+                final String name = strings[readVarInt(in)];
+                tgfModel.addNode(new TgfNode(id, name));
+            }
+            final int edgeCount = readCount(in, 3);
+            final TgfEdge[] tgfEdges = new TgfEdge[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                final String from = strings[readVarInt(in)];
+                final String to = strings[readVarInt(in)];
+                final String label = strings[readVarInt(in)];
+                tgfEdges[e] = new TgfEdge(from, to, label);
+            }
+            final boolean deduplicateEdges = version >= 2 && readVarInt(in) != 0;
+            tgfModel.setDeduplicateEdges(deduplicateEdges);
+            tgfModel.ensureEdgeCapacity(edgeCount);
+            for (int e = 0; e < edgeCount; e++) {
+                final int multiplicity = deduplicateEdges ? readVarInt(in) : 1;
+                if (multiplicity < 1) {
+                    throw new IOException(String.format("Corrupt tgf snapshot multiplicity %d", multiplicity));
+                }
+                tgfModel.addEdge(tgfEdges[e], multiplicity);
+            }
+            return tgfModel;
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            final EOFException eofex = new EOFException("Truncated tgf snapshot");
+            eofex.initCause(ex);
+            throw eofex;
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException ex) {
+            throw new IOException("Corrupt tgf snapshot", ex);
+        }
+    }
+
+    /**
+     * Read a count of items, checking that the remaining bytes can hold
+     * them, before anything is allocated for them.
+     */
+    private static int readCount(ByteBuffer in, int minBytesPerItem) throws IOException {
+        final int count = readVarInt(in);
+        if (count < 0 || (long) count * minBytesPerItem > in.remaining()) {
+            throw new EOFException("Truncated tgf snapshot");
+        }
+        return count;
+    }
+
+    /**
+     * Read an unsigned LEB128 varint of a non-negative int, i.e. of at most 5
+     * bytes, the 5th byte holding the 3 highest bits.
+     */
+    static int readVarInt(ByteBuffer in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            final byte b = in.get();
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        final byte b = in.get();
+        if ((b & 0xf8) != 0) {
+            // a 6th byte, or bits beyond 31 bits
+            throw new IOException(String.format("Corrupt tgf snapshot varint, 5th byte 0x%02x", b & 0xff));
+        }
+        return result | b << 28;
+    }
+
+    /**
+     * Buffered output of ints, and unsigned LEB128 varints.
+     */
+    static final class VarIntOutput {
+
+        private final OutputStream os;
+        private final byte[] buf = new byte[1 << 16];
+        private int count;
+
+        VarIntOutput(OutputStream os) {
+            this.os = os;
+        }
+
+        void writeInt(int v) throws IOException {
+            ensure(4);
+            buf[count++] = (byte) (v >>> 24);
+            buf[count++] = (byte) (v >>> 16);
+            buf[count++] = (byte) (v >>> 8);
+            buf[count++] = (byte) v;
+        }
+
+        void writeVarInt(int v) throws IOException {
+            ensure(5);
+            while ((v & ~0x7f) != 0) {
+                buf[count++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            if (bytes.length > buf.length - count) {
+                flushBuffer();
+                if (bytes.length > buf.length) {
+                    os.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            os.flush();
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.length - count < n) {
+                flushBuffer();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            os.write(buf, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append only arena of UTF-8 encoded strings in direct {@link ByteBuffer}
+ * chunks.
+ * <p>
+ * A string is stored as varint length, and UTF-8 bytes, and referenced by a
+ * {@code long} holding the chunk index in the high, and the offset in the
+ * low 32 bits. Strings are decoded on each {@link #get(long)}.
+ * <p>
+ * Adding is not thread safe, getting uses absolute reads only, and may be
+ * done concurrently once adding is done.
+ * <p>
+ * {@link #close()} frees the off-heap memory of the chunks right away, by
+ * the cleaner of the direct buffers. There is no public API for it, thus
+ * the cleaner is looked up reflectively, {@code sun.misc.Unsafe#invokeCleaner}
+ * on Java 9+, {@code DirectBuffer#cleaner()} on Java 8. If neither is
+ * accessible, the memory is released when the garbage collector collects
+ * the chunks, and {@link #allocated()} keeps reporting it.
+ *
+ * @author berni3
+ */
+class TgfStringArena implements Closeable {
+
+    /**
+     * Size of a chunk, larger strings get a chunk of their own.
+     */
+    static final int CHUNK_SIZE = 1 << 22;
+
+    /**
+     * Frees a direct buffer, or null if no cleaner is accessible.
+     */
+    private static final BufferCleaner CLEANER = bufferCleaner();
+
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long allocated;
+
+    /**
+     * Append a string.
+     *
+     * @param s
+     * @return reference of the string
+     */
+    long add(String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        final int size = bytes.length + 5;
+        if (current == null || current.remaining() < size) {
+            checkOpen();
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, size));
+            chunks.add(current);
+            allocated += current.capacity();
+        }
+        final long ref = ((long) (chunks.size() - 1) << 32) | current.position();
+        int len = bytes.length;
+        while ((len & ~0x7f) != 0) {
+            current.put((byte) ((len & 0x7f) | 0x80));
+            len >>>= 7;
+        }
+        current.put((byte) len);
+        current.put(bytes);
+        return ref;
+    }
+
+    /**
+     * Decode a string.
+     *
+     * @param ref reference returned by {@link #add(String)}
+     * @return
+     */
+    String get(long ref) {
+        checkOpen();
+        final ByteBuffer chunk = chunks.get((int) (ref >>> 32));
+        int offset = (int) ref;
+        int len = 0;
+        for (int shift = 0;; shift += 7) {
+            final byte b = chunk.get(offset++);
+            len |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        final byte[] bytes = new byte[len];
+        for (int i = 0; i < len; i++) {
+            bytes[i] = chunk.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of bytes allocated off-heap, once closed the bytes not
+     * freed by {@link #close()}
+     */
+    long allocated() {
+        return allocated;
+    }
+
+    /**
+     * Invalidate the arena, and free the off-heap memory of its chunks.
+     * <p>
+     * Adding, and getting strings throws {@link IllegalStateException}
+     * afterwards. Closing must not run concurrently with getting, as a
+     * freed chunk must not be read anymore.
+     */
+    @Override
+    public void close() {
+        if (chunks == null) {
+            return;
+        }
+        final List<ByteBuffer> closed = chunks;
+        chunks = null;
+        current = null;
+        for (ByteBuffer chunk : closed) {
+            if (CLEANER != null && CLEANER.free(chunk)) {
+                allocated -= chunk.capacity();
+            }
+        }
+    }
+
+    boolean isClosed() {
+        return chunks == null;
+    }
+
+    private void checkOpen() {
+        if (chunks == null) {
+            throw new IllegalStateException("String arena is closed");
+        }
+    }
+
+    /**
+     * Reflective access to the cleaner of direct buffers.
+     */
+    @FunctionalInterface
+    interface BufferCleaner {
+
+        /**
+         * @return true if the memory of the direct buffer was freed
+         */
+        boolean free(ByteBuffer directBuffer);
+    }
+
+    private static BufferCleaner bufferCleaner() {
+        try {
+            // Java 9+
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return directBuffer -> {
+                try {
+                    invokeCleaner.invoke(unsafe, directBuffer);
+                    return true;
+                } catch (ReflectiveOperationException | RuntimeException ex) {
+                    return false;
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // Java 8, or no access to Unsafe
+        }
+        try {
+            final ByteBuffer probe = ByteBuffer.allocateDirect(1);
+            final Method cleaner = probe.getClass().getMethod("cleaner");
+            cleaner.setAccessible(true);
+            final Method clean = cleaner.invoke(probe).getClass().getMethod("clean");
+            clean.setAccessible(true);
+            clean.invoke(cleaner.invoke(probe));
+            return directBuffer -> {
+                try {
+                    clean.invoke(cleaner.invoke(directBuffer));
+                    return true;
+                } catch (ReflectiveOperationException | RuntimeException ex) {
+                    return false;
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.util.Arrays;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+
+/**
+ * Strongly connected components of a {@link TgfModel}.
+ * <p>
+ * Components are computed by Tarjan's algorithm, using explicit stacks
+ * instead of recursion, thus arbitrarily deep graphs are handled in
+ * {@code O(V+E)}. Components are numbered in model order of their first
+ * node, which represents the component.
+ * <p>
+ * The condensation, see {@link #toTgfModel()}, collapses each component
+ * into its representative, and is acyclic.
+ *
+ * @author berni3
+ */
+public final class TgfStronglyConnectedComponents {
+
+    private final TgfModel tgfModel;
+    final TgfCompactGraph graph;
+    /**
+     * Component of each node of {@link #graph}.
+     */
+    final int[] components;
+    /**
+     * Representative node of each component.
+     */
+    final int[] representatives;
+    /**
+     * Nodes of component {@code c} occupy
+     * {@code [memberOffsets[c]..memberOffsets[c+1])} of {@link #members}.
+     */
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    private TgfStronglyConnectedComponents(TgfModel tgfModel, TgfCompactGraph graph, int[] components, int[] representatives) {
+        this.tgfModel = tgfModel;
+        this.graph = graph;
+        this.components = components;
+        this.representatives = representatives;
+        this.memberOffsets = new int[representatives.length + 1];
+        for (int c : components) {
+            memberOffsets[c + 1] += 1;
+        }
+        for (int c = 0; c < representatives.length; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        this.members = new int[components.length];
+        final int[] next = Arrays.copyOf(memberOffsets, representatives.length);
+        for (int v = 0; v < components.length; v++) {
+            members[next[components[v]]++] = v;
+        }
+    }
+
+    /**
+     * Compute the strongly connected components of a {@link TgfModel}.
+     *
+     * @param tgfModel
+     * @return
+     */
+    public static TgfStronglyConnectedComponents of(TgfModel tgfModel) {
+        final TgfCompactGraph graph = TgfCompactGraph.of(tgfModel);
+        final int n = graph.nodeCount();
+        final int[] index = new int[n];
+        final int[] lowLink = new int[n];
+        Arrays.fill(index, -1);
+        final boolean[] onStack = new boolean[n];
+        // stack of the nodes of unfinished components
+        final int[] componentStack = new int[n];
+        int componentTop = 0;
+        // stack of the visited nodes, and the slot of their next out-edge
+        final int[] callNodes = new int[n];
+        final int[] callSlots = new int[n];
+        final int[] tarjanComponents = new int[n];
+        int counter = 0;
+        int componentCount = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int callTop = 0;
+            index[root] = lowLink[root] = counter++;
+            componentStack[componentTop++] = root;
+            onStack[root] = true;
+            callNodes[callTop] = root;
+            callSlots[callTop++] = graph.outStart(root);
+            while (callTop > 0) {
+                final int v = callNodes[callTop - 1];
+                if (callSlots[callTop - 1] < graph.outEnd(v)) {
+                    final int w = graph.outTarget(callSlots[callTop - 1]++);
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = counter++;
+                        componentStack[componentTop++] = w;
+                        onStack[w] = true;
+                        callNodes[callTop] = w;
+                        callSlots[callTop++] = graph.outStart(w);
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+                callTop -= 1;
+                if (callTop > 0) {
+                    final int u = callNodes[callTop - 1];
+                    lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+                }
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = componentStack[--componentTop];
+                        onStack[w] = false;
+                        tarjanComponents[w] = componentCount;
+                    } while (w != v);
+                    componentCount += 1;
+                }
+            }
+        }
+        // renumber components in model order of their first node
+        final int[] renumbered = new int[componentCount];
+        Arrays.fill(renumbered, -1);
+        final int[] components = new int[n];
+        final int[] representatives = new int[componentCount];
+        int c = 0;
+        for (int v = 0; v < n; v++) {
+            if (renumbered[tarjanComponents[v]] < 0) {
+                representatives[c] = v;
+                renumbered[tarjanComponents[v]] = c++;
+            }
+            components[v] = renumbered[tarjanComponents[v]];
+        }
+        return new TgfStronglyConnectedComponents(tgfModel, graph, components, representatives);
+    }
+
+    /**
+     * @return number of strongly connected components
+     */
+    public int componentCount() {
+        return representatives.length;
+    }
+
+    /**
+     * @param nodeId
+     * @return component of the node, or -1 if there is no such node
+     */
+    public int component(String nodeId) {
+        final int v = graph.nodeIndex(nodeId);
+        return v < 0 ? -1 : components[v];
+    }
+
+    /**
+     * @param nodeId
+     * @return id of the node representing the component of {@code nodeId},
+     * or null if there is no such node
+     */
+    public String representative(String nodeId) {
+        final int v = graph.nodeIndex(nodeId);
+        return v < 0 ? null : graph.nodeId(representatives[components[v]]);
+    }
+
+    /**
+     * @param component
+     * @return number of nodes of the component
+     */
+    public int componentSize(int component) {
+        return memberOffsets[component + 1] - memberOffsets[component];
+    }
+
+    /**
+     * @return true if the model has a cycle, i.e. a component of several
+     * nodes, or a self-loop
+     */
+    public boolean hasCycles() {
+        if (componentCount() < graph.nodeCount()) {
+            return true;
+        }
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            for (int slot = graph.outStart(v); slot < graph.outEnd(v); slot++) {
+                if (graph.outTarget(slot) == v) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create the condensation of the model.
+     * <p>
+     * Each component becomes its representative node. The name of a
+     * component of several nodes joins the names of its nodes in model
+     * order, separated by {@code ", "}. Edges within a component are
+     * dropped, any other edge points from, and to the representatives of
+     * its nodes, in model order. Thus the condensation is acyclic.
+     *
+     * @return
+     */
+    public TgfModel toTgfModel() {
+        final TgfModel condensed = new TgfModel(componentCount());
+        condensed.setDeduplicateEdges(tgfModel.isDeduplicatingEdges());
+        for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
+            final int v = graph.nodeIndex(tgfNode.id);
+            final int c = components[v];
+            if (representatives[c] != v) {
+                continue;
+            }
+            if (componentSize(c) == 1) {
+                condensed.addNode(tgfNode);
+            } else {
+                final StringBuilder name = new StringBuilder();
+                for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                    final int member = members[m];
+                    final String memberName = graph.nodeName(member);
+                    if (name.length() > 0) {
+                        name.append(", ");
+                    }
+                    name.append(memberName != null ? memberName : graph.nodeId(member));
+                }
+                condensed.addNode(new TgfNode(tgfNode.id, name.toString()));
+            }
+        }
+        for (int e = 0; e < tgfModel.tgfEdgeList.size(); e++) {
+            final TgfEdge tgfEdge = tgfModel.tgfEdgeList.get(e);
+            final int from = components[graph.nodeIndex(tgfEdge.from)];
+            final int to = components[graph.nodeIndex(tgfEdge.to)];
+            if (from == to) {
+                continue;
+            }
+            final String fromId = graph.nodeId(representatives[from]);
+            final String toId = graph.nodeId(representatives[to]);
+            condensed.addEdge(fromId.equals(tgfEdge.from) && toId.equals(tgfEdge.to)
+                    ? tgfEdge : new TgfEdge(fromId, toId, tgfEdge.label),
+                    tgfModel.multiplicity(e));
+        }
+        return condensed;
+    }
+}
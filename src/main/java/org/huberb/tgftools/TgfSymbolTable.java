@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import org.huberb.tgftools.TgfCompactGraph.StringIndex;
+
+/**
+ * Symbol table interning node ids, node names, and edge labels of a single
+ * parse.
+ * <p>
+ * Symbols are looked up directly on the index range of a
+ * {@link TgfScanner}, thus a string is only created for a symbol seen the
+ * first time. Equal symbols share one {@link String} instance.
+ * <p>
+ * A symbol table is not thread safe. A table may have a parent table, which
+ * is searched first, and must not be modified anymore, allowing several
+ * threads to share the symbols of the parent.
+ * <p>
+ * The symbols of a table are kept in a {@link StringIndex}.
+ *
+ * @author berni3
+ */
+class TgfSymbolTable {
+
+    private final TgfSymbolTable parent;
+    private final StringIndex symbols = new StringIndex();
+
+    TgfSymbolTable() {
+        this(null);
+    }
+
+    TgfSymbolTable(TgfSymbolTable parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return number of symbols of this table, excluding its parent
+     */
+    int size() {
+        return symbols.size;
+    }
+
+    /**
+     * Intern the chars {@code [from..to)} of a scanner.
+     *
+     * @param scanner
+     * @param from
+     * @param to
+     * @return the interned string
+     */
+    String intern(TgfScanner scanner, int from, int to) {
+        final int maxDirectChar = scanner.maxDirectChar();
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            final int c = scanner.charAt(i);
+            if (c > maxDirectChar) {
+                // needs decoding before comparing
+                return intern(scanner.string(from, to));
+            }
+            h = 31 * h + c;
+        }
+        for (TgfSymbolTable t = this; t != null; t = t.parent) {
+            final String found = t.find(h, scanner, from, to);
+            if (found != null) {
+                return found;
+            }
+        }
+        final String s = scanner.string(from, to);
+        insert(h, s);
+        return s;
+    }
+
+    /**
+     * Intern a string.
+     *
+     * @param s
+     * @return the interned string
+     */
+    String intern(String s) {
+        final int h = s.hashCode();
+        for (TgfSymbolTable t = this; t != null; t = t.parent) {
+            final String found = t.find(h, s);
+            if (found != null) {
+                return found;
+            }
+        }
+        insert(h, s);
+        return s;
+    }
+
+    /**
+     * Look up the chars {@code [from..to)} of a scanner, without interning
+     * them.
+     *
+     * @param scanner
+     * @param from
+     * @param to
+     * @return the interned string, or null if the symbol is unknown
+     */
+    String lookup(TgfScanner scanner, int from, int to) {
+        final int maxDirectChar = scanner.maxDirectChar();
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            final int c = scanner.charAt(i);
+            if (c > maxDirectChar) {
+                // needs decoding before comparing
+                final String s = scanner.string(from, to);
+                final int sh = s.hashCode();
+                for (TgfSymbolTable t = this; t != null; t = t.parent) {
+                    final String found = t.find(sh, s);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+                return null;
+            }
+            h = 31 * h + c;
+        }
+        for (TgfSymbolTable t = this; t != null; t = t.parent) {
+            final String found = t.find(h, scanner, from, to);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private String find(int h, TgfScanner scanner, int from, int to) {
+        final int index = symbols.indexOf(h, scanner, from, to);
+        return index != -1 ? symbols.keys[index] : null;
+    }
+
+    private String find(int h, String s) {
+        final int index = symbols.indexOf(h, s);
+        return index != -1 ? symbols.keys[index] : null;
+    }
+
+    private void insert(int h, String s) {
+        symbols.insert(h, s);
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.util.Arrays;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+
+/**
+ * Transitive reduction of a {@link TgfModel}.
+ * <p>
+ * An edge {@code a -> c} is redundant if {@code c} is reachable from
+ * {@code a} by another path, e.g. {@code a -> b -> c}. Redundancy is
+ * decided on the acyclic condensation, see
+ * {@link TgfStronglyConnectedComponents}. Edges within a component are
+ * kept, thus the reduced model has the reachability of the model.
+ * <p>
+ * Descendant sets of the components are {@code long[]} bitsets, computed in
+ * reverse topological order, one word of 64 components at a time. Bits are
+ * only needed for successors of components having several successors, as
+ * no other edge can be redundant. If the sets exceed
+ * {@link #DESCENDANT_WORDS}, they are computed in blocks of bits.
+ *
+ * @author berni3
+ */
+public final class TgfTransitiveReduction {
+
+    /**
+     * Maximum number of words of the descendant sets of all components,
+     * i.e. 64 MB.
+     */
+    static final int DESCENDANT_WORDS = 1 << 23;
+
+    private final TgfModel tgfModel;
+    /**
+     * Whether each edge of the model is redundant.
+     */
+    private final boolean[] redundant;
+    private final int redundantCount;
+
+    private TgfTransitiveReduction(TgfModel tgfModel, boolean[] redundant) {
+        this.tgfModel = tgfModel;
+        this.redundant = redundant;
+        int count = 0;
+        for (boolean r : redundant) {
+            count += r ? 1 : 0;
+        }
+        this.redundantCount = count;
+    }
+
+    /**
+     * Compute the redundant edges of a {@link TgfModel}.
+     *
+     * @param tgfModel
+     * @return
+     */
+    public static TgfTransitiveReduction of(TgfModel tgfModel) {
+        return of(tgfModel, DESCENDANT_WORDS);
+    }
+
+    static TgfTransitiveReduction of(TgfModel tgfModel, int descendantWords) {
+        final TgfStronglyConnectedComponents scc = TgfStronglyConnectedComponents.of(tgfModel);
+        final Condensation condensation = new Condensation(scc);
+        final boolean[] redundantSlots = condensation.redundantSlots(descendantWords);
+
+        final boolean[] redundant = new boolean[tgfModel.tgfEdgeList.size()];
+        for (int e = 0; e < redundant.length; e++) {
+            final TgfEdge tgfEdge = tgfModel.tgfEdgeList.get(e);
+            final int from = scc.components[scc.graph.nodeIndex(tgfEdge.from)];
+            final int to = scc.components[scc.graph.nodeIndex(tgfEdge.to)];
+            if (from != to) {
+                redundant[e] = redundantSlots[condensation.slot(from, to)];
+            }
+        }
+        return new TgfTransitiveReduction(tgfModel, redundant);
+    }
+
+    /**
+     * @return number of redundant edges
+     */
+    public int redundantEdgeCount() {
+        return redundantCount;
+    }
+
+    /**
+     * @param edgeIndex
+     * @return true if the edge is implied by other edges
+     */
+    public boolean isRedundant(int edgeIndex) {
+        return redundant[edgeIndex];
+    }
+
+    /**
+     * Create the model without redundant edges.
+     * <p>
+     * The model keeps all nodes, and the other edges in model order.
+     *
+     * @return
+     */
+    public TgfModel toTgfModel() {
+        final TgfModel reduced = new TgfModel(tgfModel.tgfNodeList.size());
+        reduced.setDeduplicateEdges(tgfModel.isDeduplicatingEdges());
+        tgfModel.tgfNodeList.values().forEach(reduced::addNode);
+        for (int e = 0; e < redundant.length; e++) {
+            if (!redundant[e]) {
+                reduced.addEdge(tgfModel.tgfEdgeList.get(e), tgfModel.multiplicity(e));
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * Condensation of a model, with distinct successors in ascending order.
+     */
+    static final class Condensation {
+
+        final int componentCount;
+        final int[] offsets;
+        final int[] successors;
+
+        Condensation(TgfStronglyConnectedComponents scc) {
+            final TgfCompactGraph graph = scc.graph;
+            this.componentCount = scc.componentCount();
+            long[] pairs = new long[graph.edgeCount()];
+            int pairCount = 0;
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                for (int slot = graph.outStart(v); slot < graph.outEnd(v); slot++) {
+                    final int from = scc.components[v];
+                    final int to = scc.components[graph.outTarget(slot)];
+                    if (from != to) {
+                        pairs[pairCount++] = ((long) from << 32) | to;
+                    }
+                }
+            }
+            Arrays.sort(pairs, 0, pairCount);
+            this.offsets = new int[componentCount + 1];
+            this.successors = new int[pairCount];
+            int successorCount = 0;
+            for (int i = 0; i < pairCount; i++) {
+                if (i > 0 && pairs[i] == pairs[i - 1]) {
+                    continue;
+                }
+                offsets[(int) (pairs[i] >>> 32) + 1] += 1;
+                successors[successorCount++] = (int) pairs[i];
+            }
+            for (int c = 0; c < componentCount; c++) {
+                offsets[c + 1] += offsets[c];
+            }
+        }
+
+        /**
+         * @return slot of the edge {@code from -> to}
+         */
+        int slot(int from, int to) {
+            return Arrays.binarySearch(successors, offsets[from], offsets[from + 1], to);
+        }
+
+        /**
+         * @return components in topological order
+         */
+        int[] topologicalOrder() {
+            final int[] inDegrees = new int[componentCount];
+            for (int slot = 0; slot < offsets[componentCount]; slot++) {
+                inDegrees[successors[slot]] += 1;
+            }
+            final int[] order = new int[componentCount];
+            int tail = 0;
+            for (int c = 0; c < componentCount; c++) {
+                if (inDegrees[c] == 0) {
+                    order[tail++] = c;
+                }
+            }
+            for (int head = 0; head < tail; head++) {
+                final int c = order[head];
+                for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                    if (--inDegrees[successors[slot]] == 0) {
+                        order[tail++] = successors[slot];
+                    }
+                }
+            }
+            return order;
+        }
+
+        /**
+         * Decide the redundant edges of the condensation.
+         * <p>
+         * The edge {@code c -> s} is redundant if {@code s} is a descendant
+         * of another successor of {@code c}, i.e. if it is in the union of
+         * the descendant sets of the successors of {@code c}.
+         *
+         * @param descendantWords maximum number of words of all descendant
+         * sets
+         * @return whether each slot is redundant
+         */
+        boolean[] redundantSlots(int descendantWords) {
+            final boolean[] redundantSlots = new boolean[successors.length];
+            final int[] order = topologicalOrder();
+            final int[] positions = new int[componentCount];
+            for (int p = 0; p < componentCount; p++) {
+                positions[order[p]] = p;
+            }
+            // bits of the successors of branching components, in topological order
+            final boolean[] candidates = new boolean[componentCount];
+            for (int c = 0; c < componentCount; c++) {
+                if (offsets[c + 1] - offsets[c] > 1) {
+                    for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                        candidates[successors[slot]] = true;
+                    }
+                }
+            }
+            final int[] bits = new int[componentCount];
+            Arrays.fill(bits, -1);
+            int bitCount = 0;
+            final int[] bitPositions = new int[componentCount];
+            for (int p = 0; p < componentCount; p++) {
+                if (candidates[order[p]]) {
+                    bitPositions[bitCount] = p;
+                    bits[order[p]] = bitCount++;
+                }
+            }
+            if (bitCount == 0) {
+                return redundantSlots;
+            }
+            final int words = Math.max(1, Math.min(TgfReachability.words(bitCount),
+                    descendantWords / componentCount));
+            final long[] descendants = new long[componentCount * words];
+            for (int firstBit = 0; firstBit < bitCount; firstBit += words * 64) {
+                final int endBit = Math.min(bitCount, firstBit + words * 64);
+                // components after the last bit of the block reach none of its bits
+                final int lastPosition = bitPositions[endBit - 1];
+                Arrays.fill(descendants, 0, (lastPosition + 1) * words, 0L);
+                for (int p = lastPosition; p >= 0; p--) {
+                    final int c = order[p];
+                    final int row = p * words;
+                    for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                        final int sp = positions[successors[slot]];
+                        if (sp <= lastPosition) {
+                            final int successorRow = sp * words;
+                            for (int w = 0; w < words; w++) {
+                                descendants[row + w] |= descendants[successorRow + w];
+                            }
+                        }
+                    }
+                    for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                        final int bit = bits[successors[slot]];
+                        if (bit >= firstBit && bit < endBit) {
+                            if (TgfReachability.isSet(descendants, row * 64 + bit - firstBit)) {
+                                redundantSlots[slot] = true;
+                            }
+                        }
+                    }
+                    for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                        final int bit = bits[successors[slot]];
+                        if (bit >= firstBit && bit < endBit) {
+                            TgfReachability.set(descendants, row * 64 + bit - firstBit);
+                        }
+                    }
+                }
+            }
+            return redundantSlots;
+        }
+    }
+}
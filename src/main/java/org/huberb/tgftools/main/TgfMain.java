@@ -16,8 +16,6 @@
 package org.huberb.tgftools.main;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,6 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import org.huberb.tgftools.TgfCanonicalSubtrees;
 import org.huberb.tgftools.TgfConverters.CsvConverter;
 import org.huberb.tgftools.TgfConverters.DatalogPropertySchemaConverter;
 import org.huberb.tgftools.TgfConverters.DatalogValueSchemaConverter;
@@ -39,8 +39,11 @@ import org.huberb.tgftools.TgfConverters.PumlMindmapConverter;
 import org.huberb.tgftools.TgfConverters.PumlNodeConverter;
 import org.huberb.tgftools.TgfConverters.PumlWbsConverter;
 import org.huberb.tgftools.TgfConverters.YamlConverter;
+import org.huberb.tgftools.TgfMavenCoordinates;
 import org.huberb.tgftools.TgfModel;
 import org.huberb.tgftools.TgfParser;
+import org.huberb.tgftools.TgfStronglyConnectedComponents;
+import org.huberb.tgftools.TgfTransitiveReduction;
 import org.huberb.tgftools.main.TgfConvertToOptions.ConvertToFormat;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
@@ -58,7 +61,8 @@ import picocli.CommandLine.Spec;
 @Command(name = "tgfMain",
         mixinStandardHelpOptions = true,
         version = "tgfMain 1.0-SNAPSHOT",
-        description = "parse, and convert TGF file format")
+        description = "parse, and convert TGF file format",
+        subcommands = {TgfQueryCommand.class})
 public class TgfMain implements Callable<Integer> {
 
     @Spec
@@ -74,6 +78,33 @@ public class TgfMain implements Callable<Integer> {
     @Option(names = {"--overwrite-outputfile"},
             description = "overwrite existing output file")
     private boolean overwriteOutputfile;
+    @Option(names = {"--parallel"},
+            description = "parse edges of TGF file in parallel")
+    private boolean parseParallel;
+    @Option(names = {"--multi-document"},
+            description = "parse concatenated TGF documents of TGF file, merge them prefixing node ids by document index")
+    private boolean multiDocument;
+    @Option(names = {"--document-separator"}, paramLabel = "<line>",
+            description = "split TGF documents of --multi-document at this separator line, instead of deriving the boundaries")
+    private String documentSeparator;
+    @Option(names = {"--deduplicate-edges"},
+            description = "convert equal edges once, emitting the number of occurrences")
+    private boolean deduplicateEdges;
+    @Option(names = {"--maven-scope"}, split = ",",
+            description = "keep only nodes of maven artifacts of these scopes, e.g. compile,runtime")
+    private List<String> mavenScopes;
+    @Option(names = {"--condense-cycles"},
+            description = "convert each cycle as one node, joining the names of its nodes")
+    private boolean condenseCycles;
+    @Option(names = {"--transitive-reduction"},
+            description = "convert without edges implied by other edges, e.g. a -> c implied by a -> b -> c")
+    private boolean transitiveReduction;
+    @Option(names = {"--share-subtrees"},
+            description = "convert identical subtrees once, e.g. dependencies shared by modules of --multi-document")
+    private boolean shareSubtrees;
+    @Option(names = {"--tree-budget"},
+            description = "expand at most this number of nodes converting to puml mindmap, or wbs")
+    private Integer treeBudget;
 
     @Mixin
     private TgfConvertToOptions tgfConvertToOptions;
@@ -98,10 +129,51 @@ public class TgfMain implements Callable<Integer> {
     @Override
     public Integer call() throws Exception {
         final TgfParser tgfParser = new TgfParser();
-        try (final Reader tgfReader = new ReaderFactory(tgfFile).createUtf8Reader()) {
-            final TgfModel tgfModel = tgfParser.parse(tgfReader);
-            convertTgfModel(tgfModel);
+        try {
+            final TgfModel tgfModel;
+            if (multiDocument && tgfFile == null) {
+                System_err_println("Option --multi-document requires option --file");
+                return 1;
+            } else if (multiDocument && parseParallel) {
+                System_err_println("Option --multi-document excludes option --parallel");
+                return 1;
+            } else if (!multiDocument && documentSeparator != null) {
+                System_err_println("Option --document-separator requires option --multi-document");
+                return 1;
+            } else if (multiDocument) {
+                tgfModel = TgfModel.mergeDocuments(tgfParser.parseDocuments(tgfFile.toPath(),
+                        documentSeparator, ForkJoinPool.commonPool()));
+            } else if (tgfFile != null && parseParallel) {
+                tgfModel = tgfParser.parseParallel(tgfFile.toPath());
+            } else if (tgfFile != null) {
+                tgfModel = tgfParser.parse(tgfFile.toPath());
+            } else {
+                try (final Reader tgfReader = new ReaderFactory().createUtf8Reader()) {
+                    tgfModel = tgfParser.parse(tgfReader);
+                }
+            }
+            TgfModel tgfModelToConvert = tgfModel;
+            if (mavenScopes != null && !mavenScopes.isEmpty()) {
+                tgfModelToConvert = TgfMavenCoordinates.of(tgfModelToConvert)
+                        .filter(TgfMavenCoordinates.scopeIn(mavenScopes.toArray(new String[0])));
+            }
+            if (condenseCycles) {
+                tgfModelToConvert = TgfStronglyConnectedComponents.of(tgfModelToConvert).toTgfModel();
+            }
+            if (transitiveReduction) {
+                tgfModelToConvert = TgfTransitiveReduction.of(tgfModelToConvert).toTgfModel();
+            }
+            if (shareSubtrees) {
+                tgfModelToConvert = TgfCanonicalSubtrees.of(tgfModelToConvert).toTgfModel();
+            }
+            if (deduplicateEdges) {
+                tgfModelToConvert = tgfModelToConvert.withDeduplicatedEdges();
+            }
+            convertTgfModel(tgfModelToConvert);
             return 0;
+        } catch (IllegalArgumentException iaex) {
+            System_err_println(iaex.getMessage());
+            return 1;
         } finally {
             this.spec.commandLine().getOut().flush();
             this.spec.commandLine().getErr().flush();
@@ -139,9 +211,17 @@ public class TgfMain implements Callable<Integer> {
             if (convertToFormat == ConvertToFormat.puml) {
                 conversionResult = new PumlNodeConverter().convert(tgfModel);
             } else if (convertToFormat == ConvertToFormat.pumlMindmap) {
-                conversionResult = new PumlMindmapConverter().convert(tgfModel);
+                final PumlMindmapConverter pumlMindmapConverter = new PumlMindmapConverter();
+                if (treeBudget != null) {
+                    pumlMindmapConverter.setBudget(treeBudget);
+                }
+                conversionResult = pumlMindmapConverter.convert(tgfModel);
             } else if (convertToFormat == ConvertToFormat.pumlWbs) {
-                conversionResult = new PumlWbsConverter().convert(tgfModel);
+                final PumlWbsConverter pumlWbsConverter = new PumlWbsConverter();
+                if (treeBudget != null) {
+                    pumlWbsConverter.setBudget(treeBudget);
+                }
+                conversionResult = pumlWbsConverter.convert(tgfModel);
             } else if (convertToFormat == ConvertToFormat.csv) {
                 conversionResult = new CsvConverter().convert(tgfModel);
             } else if (convertToFormat == ConvertToFormat.json) {
@@ -232,28 +312,14 @@ public class TgfMain implements Callable<Integer> {
      * Factory for creating a {@link Reader}.
      *
      * <p>
-     * Use this reader for reading TGF data.
+     * Use this reader for reading TGF data from stdin, files are parsed by
+     * {@link TgfParser} directly.
      */
     static class ReaderFactory {
 
-        private final File f;
-
-        public ReaderFactory(File f) {
-            this.f = f;
-        }
-
-        Reader createUtf8Reader() throws FileNotFoundException {
-            final Reader r;
-            if (f != null) {
-                final FileInputStream fis = new FileInputStream(this.f);
-                final InputStreamReader isr = new InputStreamReader(fis, StandardCharsets.UTF_8);
-                r = isr;
-            } else {
-                final InputStream is = new java.io.BufferedInputStream(System.in);
-                final InputStreamReader isr = new InputStreamReader(is, StandardCharsets.UTF_8);
-                r = isr;
-            }
-            return r;
+        Reader createUtf8Reader() {
+            final InputStream is = new java.io.BufferedInputStream(System.in);
+            return new InputStreamReader(is, StandardCharsets.UTF_8);
         }
     }
 }
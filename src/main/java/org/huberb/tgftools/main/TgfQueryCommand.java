@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools.main;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.huberb.tgftools.TgfModel;
+import org.huberb.tgftools.TgfParser;
+import org.huberb.tgftools.TgfReachability;
+import org.huberb.tgftools.main.TgfMain.ReaderFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+/**
+ * Picocli subcommand querying reachability, and paths of a TGF file.
+ * <p>
+ * Each resulting node is written as TGF node line {@code id name}.
+ *
+ * @author berni3
+ */
+@Command(name = "query",
+        mixinStandardHelpOptions = true,
+        description = "query reachability, and paths of TGF file")
+public class TgfQueryCommand implements Callable<Integer> {
+
+    @Spec
+    private CommandSpec spec;
+
+    @Option(names = {"-f", "--file"},
+            description = "read from TGF file, if not specified read TGF from stdin")
+    private File tgfFile;
+    @Option(names = {"--descendants"}, split = ",",
+            description = "write nodes these nodes transitively depend on")
+    private List<String> descendantsOf;
+    @Option(names = {"--ancestors"}, split = ",",
+            description = "write nodes transitively depending on these nodes")
+    private List<String> ancestorsOf;
+    @Option(names = {"--path"}, arity = "2", paramLabel = "<from> <to>",
+            description = "write nodes of a path of fewest edges")
+    private List<String> path;
+
+    /**
+     * Picocli entry point.
+     *
+     * @return exit-code
+     * @throws Exception
+     */
+    @Override
+    public Integer call() throws Exception {
+        try {
+            final int queryCount = (descendantsOf != null ? 1 : 0)
+                    + (ancestorsOf != null ? 1 : 0)
+                    + (path != null ? 1 : 0);
+            if (queryCount != 1) {
+                System_err_println("Use one of the query-options \"--descendants\", \"--ancestors\", \"--path\"");
+                return 1;
+            }
+            final TgfModel tgfModel;
+            if (tgfFile != null) {
+                tgfModel = new TgfParser().parse(tgfFile.toPath());
+            } else {
+                try (final Reader tgfReader = new ReaderFactory().createUtf8Reader()) {
+                    tgfModel = new TgfParser().parse(tgfReader);
+                }
+            }
+            final TgfReachability tgfReachability = TgfReachability.of(tgfModel);
+            final List<String> nodeIds;
+            if (descendantsOf != null) {
+                nodeIds = tgfReachability.descendants(descendantsOf.toArray(new String[0]));
+            } else if (ancestorsOf != null) {
+                nodeIds = tgfReachability.ancestors(ancestorsOf.toArray(new String[0]));
+            } else {
+                nodeIds = tgfReachability.path(path.get(0), path.get(1));
+                if (nodeIds.isEmpty()) {
+                    System_err_println(String.format("No path from %s to %s", path.get(0), path.get(1)));
+                    return 1;
+                }
+            }
+            final PrintWriter pw = spec.commandLine().getOut();
+            for (String nodeId : nodeIds) {
+                final String nodeName = tgfReachability.nodeName(nodeId);
+                if (nodeName != null) {
+                    pw.println(String.format("%s %s", nodeId, nodeName));
+                } else {
+                    pw.println(nodeId);
+                }
+            }
+            return 0;
+        } catch (IllegalArgumentException iaex) {
+            System_err_println(iaex.getMessage());
+            return 1;
+        } finally {
+            this.spec.commandLine().getOut().flush();
+            this.spec.commandLine().getErr().flush();
+        }
+    }
+
+    /**
+     * Use picocli error print writer for printing to stderr.
+     *
+     * @param str
+     */
+    private void System_err_println(String str) {
+        final PrintWriter pw = spec.commandLine().getErr();
+        pw.println(str);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfCanonicalSubtreesTest {
+
+    @Test
+    public void testOf_shared_subtree() {
+        // modules m1, and m2 both depend on lib -> util, in different edge order
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("r", "root"))
+                .node(new TgfNode("m1", "module1"))
+                .node(new TgfNode("l1", "lib"))
+                .node(new TgfNode("u1", "util"))
+                .node(new TgfNode("x1", "extra"))
+                .node(new TgfNode("m2", "module2"))
+                .node(new TgfNode("x2", "extra"))
+                .node(new TgfNode("l2", "lib"))
+                .node(new TgfNode("u2", "util"))
+                .node(new TgfNode("l3", "lib"))
+                .edge(new TgfEdge("r", "m1", ""))
+                .edge(new TgfEdge("r", "m2", ""))
+                .edge(new TgfEdge("m1", "l1", "compile"))
+                .edge(new TgfEdge("m1", "x1", "test"))
+                .edge(new TgfEdge("l1", "u1", "compile"))
+                .edge(new TgfEdge("m2", "x2", "test"))
+                .edge(new TgfEdge("m2", "l2", "compile"))
+                .edge(new TgfEdge("l2", "u2", "compile"))
+                // same name, other subtree
+                .edge(new TgfEdge("m2", "l3", "runtime"))
+                .build();
+        final TgfCanonicalSubtrees instance = TgfCanonicalSubtrees.of(tgfModel);
+
+        assertEquals("l1", instance.representative("l2"));
+        assertEquals("u1", instance.representative("u2"));
+        assertEquals("x1", instance.representative("x2"));
+        assertEquals("l3", instance.representative("l3"));
+        assertNull(instance.representative("unknown"));
+        assertEquals(7, instance.subtreeCount());
+
+        final TgfModel expected = new TgfModel.Builder()
+                .node(new TgfNode("r", "root"))
+                .node(new TgfNode("m1", "module1"))
+                .node(new TgfNode("l1", "lib"))
+                .node(new TgfNode("u1", "util"))
+                .node(new TgfNode("x1", "extra"))
+                .node(new TgfNode("m2", "module2"))
+                .node(new TgfNode("l3", "lib"))
+                .edge(new TgfEdge("r", "m1", ""))
+                .edge(new TgfEdge("r", "m2", ""))
+                .edge(new TgfEdge("m1", "l1", "compile"))
+                .edge(new TgfEdge("m1", "x1", "test"))
+                .edge(new TgfEdge("l1", "u1", "compile"))
+                .edge(new TgfEdge("m2", "x1", "test"))
+                .edge(new TgfEdge("m2", "l1", "compile"))
+                .edge(new TgfEdge("m2", "l3", "runtime"))
+                .build();
+        assertEquals(expected, instance.toTgfModel());
+    }
+
+    @Test
+    public void testOf_cycle() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("a1", "A"))
+                .node(new TgfNode("b1", "B"))
+                .node(new TgfNode("a2", "A"))
+                .node(new TgfNode("b2", "B"))
+                .edge(new TgfEdge("a1", "b1", ""))
+                .edge(new TgfEdge("b1", "a1", ""))
+                .edge(new TgfEdge("a2", "b2", ""))
+                .edge(new TgfEdge("b2", "a2", ""))
+                .build();
+        final TgfCanonicalSubtrees instance = TgfCanonicalSubtrees.of(tgfModel);
+        // nodes closing a cycle are not shared
+        assertNotEquals(instance.representative("b1"), instance.representative("b2"));
+        assertEquals(tgfModel, instance.toTgfModel());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"#\n1 2\n3 4\n5 6 x\n", "1\n2\n3\n#\n1 2\n1 3\n", "1 A\n2\n3\n#\n1 2\n1 3\n4 2\n"})
+    public void testOf_nodes_without_name_X(String tgf) throws IOException {
+        final TgfModel tgfModel = new TgfParser().parse(new StringReader(tgf));
+        final TgfCanonicalSubtrees instance = TgfCanonicalSubtrees.of(tgfModel);
+        // nodes without name are identified by their id, thus never shared
+        assertEquals(tgfModel, instance.toTgfModel());
+        assertEquals(TgfCompactGraph.of(tgfModel).nodeCount(), instance.subtreeCount());
+    }
+
+    @Test
+    public void testOf_unlabeled_edges() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("a1", "A"))
+                .node(new TgfNode("b1", "B"))
+                .node(new TgfNode("a2", "A"))
+                .node(new TgfNode("b2", "B"))
+                .node(new TgfNode("a3", "A"))
+                .node(new TgfNode("b3", "B"))
+                .edge(new TgfEdge("a1", "b1", null))
+                .edge(new TgfEdge("a2", "b2", null))
+                .edge(new TgfEdge("a3", "b3", ""))
+                .build();
+        final TgfCanonicalSubtrees instance = TgfCanonicalSubtrees.of(tgfModel);
+        assertEquals("a1", instance.representative("a2"));
+        // an unlabeled edge differs from an edge labeled by the empty string
+        assertNotEquals("a1", instance.representative("a3"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf"})
+    public void testOf_merged_documents(String resName) throws IOException {
+        final TgfModel tgfModel = new TgfParser().parse(Paths.get("./src/test/resources/", resName));
+        final TgfModel merged = TgfModel.mergeDocuments(Arrays.asList(tgfModel, tgfModel, tgfModel));
+        final TgfCanonicalSubtrees instance = TgfCanonicalSubtrees.of(merged);
+
+        // all copies share the subtrees of the first copy
+        final TgfModel expected = TgfModel.mergeDocuments(Arrays.asList(tgfModel));
+        assertEquals(expected, instance.toTgfModel());
+        assertEquals(TgfCanonicalSubtrees.of(tgfModel).subtreeCount(), instance.subtreeCount());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfCompactGraphTest {
+
+    @Test
+    public void testOf_adjacency() throws IOException {
+        final String tgf = ""
+                + "1 A\n"
+                + "2 B\n"
+                + "3 C\n"
+                + "1 duplicate\n"
+                + "#\n"
+                + "1 2 compile\n"
+                + "2 3 test\n"
+                + "1 3 compile\n"
+                + "3 4\n";
+        final TgfCompactGraph graph = TgfCompactGraph.of(new TgfParser().parse(new StringReader(tgf)));
+
+        assertEquals(4, graph.nodeCount());
+        assertEquals(4, graph.edgeCount());
+        assertEquals(0, graph.nodeIndex("1"));
+        assertEquals(3, graph.nodeIndex("4"));
+        assertEquals(-1, graph.nodeIndex("5"));
+        assertEquals("A", graph.nodeName(0));
+        assertNull(graph.nodeName(3));
+        // three distinct labels
+        assertEquals(3, graph.labels.length);
+
+        assertEquals(Arrays.asList("2 compile", "3 compile"), outEdges(graph, "1"));
+        assertEquals(Arrays.asList("3 test"), outEdges(graph, "2"));
+        assertEquals(Arrays.asList("4 "), outEdges(graph, "3"));
+        assertEquals(Arrays.asList(), outEdges(graph, "4"));
+
+        assertEquals(Arrays.asList(), inEdges(graph, "1"));
+        assertEquals(Arrays.asList("2 test", "1 compile"), inEdges(graph, "3"));
+        assertEquals(2, graph.outDegree(graph.nodeIndex("1")));
+        assertEquals(2, graph.inDegree(graph.nodeIndex("3")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf"})
+    public void testBuilder_as_parse_listener(String resName) throws IOException {
+        final Path path = Paths.get("./src/test/resources/", resName);
+        final TgfModel tgfModel = new TgfParser().parse(path);
+        final TgfCompactGraph.Builder builder = new TgfCompactGraph.Builder();
+        new TgfParser().parse(path, builder);
+        final TgfCompactGraph graph = builder.build();
+
+        assertEquals(tgfModel.tgfNodeList.size(), graph.nodeCount());
+        assertEquals(tgfModel.tgfEdgeList.size(), graph.edgeCount());
+        for (TgfNode tgfNode : tgfModel.tgfNodeList.values()) {
+            final int node = graph.nodeIndex(tgfNode.id);
+            assertEquals(tgfNode.name, graph.nodeName(node));
+        }
+        // each edge is found once in the out-edges of its source
+        final List<TgfEdge> outEdges = new ArrayList<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int slot = graph.outStart(node); slot < graph.outEnd(node); slot++) {
+                outEdges.add(new TgfEdge(graph.nodeId(node), graph.nodeId(graph.outTarget(slot)), graph.outLabel(slot)));
+            }
+        }
+        assertEquals(tgfModel.tgfEdgeList.size(), outEdges.size());
+        assertEquals(new HashSet<>(tgfModel.tgfEdgeList), new HashSet<>(outEdges));
+    }
+
+    @Test
+    public void testBuilder_empty() {
+        final TgfCompactGraph graph = new TgfCompactGraph.Builder().build();
+        assertEquals(0, graph.nodeCount());
+        assertEquals(0, graph.edgeCount());
+        assertEquals(-1, graph.nodeIndex("1"));
+    }
+
+    @Test
+    public void testLabels_shared() {
+        final String label = "compile";
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .edge(new TgfEdge("1", "2", label))
+                .edge(new TgfEdge("2", "3", new String(label)))
+                .build();
+        final TgfCompactGraph graph = TgfCompactGraph.of(tgfModel);
+        assertSame(graph.outLabel(graph.outStart(0)), graph.outLabel(graph.outStart(1)));
+    }
+
+    @Test
+    public void testLabels_unlabeled_edges() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("1", null))
+                .edge(new TgfEdge("1", "2", null))
+                .edge(new TgfEdge("2", "3", "compile"))
+                .edge(new TgfEdge("1", "3", null))
+                .build();
+        final TgfCompactGraph graph = TgfCompactGraph.of(tgfModel);
+        assertEquals(1, graph.labels.length);
+        assertEquals(Arrays.asList("2 null", "3 null"), outEdges(graph, "1"));
+        assertEquals(Arrays.asList("2 compile", "1 null"), inEdges(graph, "3"));
+    }
+
+    static List<String> outEdges(TgfCompactGraph graph, String id) {
+        final int node = graph.nodeIndex(id);
+        final List<String> result = new ArrayList<>();
+        for (int slot = graph.outStart(node); slot < graph.outEnd(node); slot++) {
+            result.add(graph.nodeId(graph.outTarget(slot)) + " " + graph.outLabel(slot));
+        }
+        return result;
+    }
+
+    static List<String> inEdges(TgfCompactGraph graph, String id) {
+        final int node = graph.nodeIndex(id);
+        final List<String> result = new ArrayList<>();
+        for (int slot = graph.inStart(node); slot < graph.inEnd(node); slot++) {
+            result.add(graph.nodeId(graph.inSource(slot)) + " " + graph.inLabel(slot));
+        }
+        return result;
+    }
+}
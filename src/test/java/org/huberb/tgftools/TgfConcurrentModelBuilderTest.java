@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.huberb.tgftools.TgfConcurrentModelBuilder.Producer;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfConcurrentModelBuilderTest {
+
+    @Test
+    public void testProducers_in_creation_order() throws Exception {
+        final List<String> resNames = Arrays.asList("tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf");
+        final TgfModel.Builder expectedBuilder = new TgfModel.Builder();
+        for (String resName : resNames) {
+            final TgfModel tgfModel = new TgfParser().parse(Paths.get("./src/test/resources/", resName));
+            tgfModel.tgfNodeList.values().forEach(expectedBuilder::node);
+            tgfModel.tgfEdgeList.forEach(expectedBuilder::edge);
+        }
+
+        final TgfConcurrentModelBuilder builder = new TgfConcurrentModelBuilder();
+        final List<Producer> producers = new ArrayList<>();
+        for (int i = 0; i < resNames.size(); i++) {
+            producers.add(builder.producer());
+        }
+        final ExecutorService executorService = Executors.newFixedThreadPool(resNames.size());
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            // parse the later file first
+            for (int i = resNames.size() - 1; i >= 0; i--) {
+                final Path path = Paths.get("./src/test/resources/", resNames.get(i));
+                final Producer producer = producers.get(i);
+                futures.add(executorService.submit(() -> {
+                    new TgfParser().parse(path, producer);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        final TgfModel expected = expectedBuilder.build();
+        final TgfModel tgfModel = builder.freeze();
+        assertEquals(expected, tgfModel);
+        assertEquals(expected.fingerprint(), tgfModel.fingerprint());
+    }
+
+    @Test
+    public void testNodeEdge_many_threads() throws Exception {
+        final int threads = 16;
+        final int edgesPerThread = 10000;
+        final TgfConcurrentModelBuilder builder = new TgfConcurrentModelBuilder();
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < edgesPerThread; i++) {
+                        // all threads add the same 100 node ids
+                        builder.node(new TgfNode(String.valueOf(i % 100), "thread" + thread));
+                        builder.edge(new TgfEdge(String.valueOf(i % 100), String.valueOf((i + 1) % 100), "t" + thread + "-" + i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        final TgfModel tgfModel = builder.freeze();
+        assertEquals(100, tgfModel.tgfNodeList.size());
+        assertEquals(threads * edgesPerThread, tgfModel.tgfEdgeList.size());
+        assertEquals(threads * edgesPerThread, new HashSet<>(tgfModel.tgfEdgeList).size());
+    }
+
+    @Test
+    public void testProducers_duplicate_node_id() throws Exception {
+        final TgfConcurrentModelBuilder builder = new TgfConcurrentModelBuilder();
+        final Producer first = builder.producer();
+        final Producer second = builder.producer();
+        // the second producer adds the duplicate id before the first one
+        final Thread secondThread = new Thread(() -> second.onNode(new TgfNode("1", "second")));
+        secondThread.start();
+        secondThread.join();
+        final Thread firstThread = new Thread(() -> first.onNode(new TgfNode("1", "first")));
+        firstThread.start();
+        firstThread.join();
+        second.onNode(new TgfNode("2", "B"));
+
+        final TgfModel expected = new TgfModel.Builder()
+                .node(new TgfNode("1", "first"))
+                .node(new TgfNode("2", "B"))
+                .build();
+        final TgfModel tgfModel = builder.freeze();
+        assertEquals(expected, tgfModel);
+        assertEquals(expected.fingerprint(), tgfModel.fingerprint());
+    }
+
+    @Test
+    public void testFreeze_rejects_further_records() {
+        final TgfConcurrentModelBuilder builder = new TgfConcurrentModelBuilder();
+        final Producer producer = builder.producer();
+        producer.onNode(new TgfNode("1", "A"));
+        producer.onNode(new TgfNode("1", "duplicate"));
+        producer.onEdge(new TgfEdge("1", "1", "self"));
+        final TgfModel tgfModel = builder.freeze();
+
+        assertEquals(new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .edge(new TgfEdge("1", "1", "self"))
+                .build(), tgfModel);
+        assertThrows(IllegalStateException.class, () -> producer.onEdge(new TgfEdge("1", "1", "")));
+        assertThrows(IllegalStateException.class, () -> builder.producer());
+        assertTrue(tgfModel.isFrozen());
+        assertThrows(IllegalStateException.class, () -> tgfModel.addNode(new TgfNode("2", "B")));
+        assertThrows(IllegalStateException.class, () -> tgfModel.addEdge(new TgfEdge("1", "1", "")));
+    }
+}
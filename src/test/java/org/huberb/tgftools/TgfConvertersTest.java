@@ -27,6 +27,7 @@ import org.huberb.tgftools.TgfConverters.PumlNodeConverter;
 import org.huberb.tgftools.TgfConverters.PumlWbsConverter;
 import org.huberb.tgftools.TgfConverters.YamlConverter;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -233,6 +234,115 @@ public class TgfConvertersTest {
         }
     }
 
+    @Test
+    public void testConverters_deduplicated_edges() throws IOException {
+        try (StringReader rr = new StringReader(tgf1 + "1 2 a\n" + "2 1\n" + "1 2 a\n")) {
+            final TgfParser tgfParser = new TgfParser();
+            final TgfModel tgfModel = tgfParser.parse(rr).withDeduplicatedEdges();
+
+            assertEquals("@startuml"
+                    + "' nodes"
+                    + "node \"A\" as 1"
+                    + "node \"B\" as 2"
+                    + "' edges"
+                    + "1 --> 2 : a x3"
+                    + "2 --> 1"
+                    + "@enduml", normalizeF.apply(new PumlNodeConverter().convert(tgfModel)));
+            assertEquals("\"type\",\"id_from\",\"name_to\",\"label\",\"count\""
+                    + "\"node\",\"1\",\"A\",\"\",\"\""
+                    + "\"node\",\"2\",\"B\",\"\",\"\""
+                    + "\"edge\",\"1\",\"2\",\"a\",\"3\""
+                    + "\"edge\",\"2\",\"1\",\"\",\"1\"", normalizeF.apply(new CsvConverter().convert(tgfModel)));
+            final String jsonFromTgf = normalizeF.apply(new JsonConverter().convert(tgfModel));
+            assertTrue(jsonFromTgf.contains("{\"from\":\"1\",\"to\":\"2\",\"label\":\"a\",\"count\":3}"), jsonFromTgf);
+            assertTrue(jsonFromTgf.contains("{\"from\":\"2\",\"to\":\"1\",\"label\":\"\"}"), jsonFromTgf);
+            final String yamlFromTgf = normalizeF.apply(new YamlConverter().convert(tgfModel));
+            assertTrue(yamlFromTgf.contains("    label: \"a\"    count: 3"), yamlFromTgf);
+            final String datalogValueFromTgf = normalizeF.apply(new DatalogValueSchemaConverter().convert(tgfModel));
+            assertTrue(datalogValueFromTgf.contains("edgeCount(\"1\", \"2\", \"a\", 3)."), datalogValueFromTgf);
+            final String datalogPropertyFromTgf = normalizeF.apply(new DatalogPropertySchemaConverter().convert(tgfModel));
+            assertTrue(datalogPropertyFromTgf.contains("tgfdata(\"1-2\", count, 3)."), datalogPropertyFromTgf);
+            assertEquals("@startmindmap"
+                    + "* root"
+                    + "** 1 A"
+                    + "*** 2 B x3"
+                    + "**** 1 A (reference)"
+                    + "@endmindmap", normalizeF.apply(new PumlMindmapConverter().convert(tgfModel)));
+        }
+    }
+
+    @Test
+    public void testPumlMindmapConverter_shared_subtrees_and_cycles() throws IOException {
+        final String tgf = ""
+                + "1 A\n"
+                + "2 B\n"
+                + "3 C\n"
+                + "4 D\n"
+                + "5 E\n"
+                + "6 F\n"
+                + "#\n"
+                + "1 2\n"
+                + "1 3\n"
+                + "2 4\n"
+                + "3 4\n"
+                + "5 6\n"
+                + "6 5\n"
+                + "1 4\n"
+                + "";
+        try (StringReader rr = new StringReader(tgf)) {
+            final TgfModel tgfModel = new TgfParser().parse(rr);
+            final PumlMindmapConverter converter = new PumlMindmapConverter();
+            final UnaryOperator<String> linesF = s -> s.replace("\r", "").replace("\n", "|");
+
+            assertEquals("@startmindmap||"
+                    + "* root|"
+                    + "** 1 A|"
+                    + "*** 2 B|"
+                    + "**** 4 D|"
+                    + "*** 3 C|"
+                    + "**** 4 D (reference)|"
+                    + "*** 4 D (reference)|"
+                    + "** 5 E|"
+                    + "*** 6 F|"
+                    + "**** 5 E (reference)|"
+                    + "|@endmindmap|", linesF.apply(converter.convert(tgfModel)));
+
+            converter.setBudget(3);
+            assertEquals("@startmindmap||"
+                    + "* root|"
+                    + "** 1 A|"
+                    + "*** 2 B|"
+                    + "**** 4 D|"
+                    + "*** ...|"
+                    + "|@endmindmap|", linesF.apply(converter.convert(tgfModel)));
+        }
+    }
+
+    @Test
+    public void testPumlWbsConverter_nodes_only_referenced_by_edges() throws IOException {
+        final String tgf = ""
+                + "1 A\n"
+                + "3 C\n"
+                + "#\n"
+                + "1 2\n"
+                + "2 3\n"
+                + "4 1\n"
+                + "";
+        try (StringReader rr = new StringReader(tgf)) {
+            final TgfModel tgfModel = new TgfParser().parse(rr);
+            final UnaryOperator<String> linesF = s -> s.replace("\r", "").replace("\n", "|");
+
+            // undeclared nodes 4, and 2 are emitted by their id, keeping 3 below 2
+            assertEquals("@startwbs||"
+                    + "* root|"
+                    + "** 4|"
+                    + "*** 1 A|"
+                    + "**** 2|"
+                    + "***** 3 C|"
+                    + "|@endwbs|", linesF.apply(new PumlWbsConverter().convert(tgfModel)));
+        }
+    }
+
     private void System_out_println(String format) {
         if (outputSystemOut) {
             System.out.println(format);
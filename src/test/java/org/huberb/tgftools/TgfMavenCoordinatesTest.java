@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.huberb.tgftools.TgfMavenCoordinates.Decoder;
+import org.huberb.tgftools.TgfMavenCoordinates.MavenCoordinate;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfMavenCoordinatesTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "org.huberb:tgftools:jar:1.0-SNAPSHOT, org.huberb, tgftools, jar, , 1.0-SNAPSHOT, ",
+        "info.picocli:picocli:jar:4.6.1:compile, info.picocli, picocli, jar, , 4.6.1, compile",
+        "io.netty:netty:jar:linux-x86_64:4.1.0:runtime, io.netty, netty, jar, linux-x86_64, 4.1.0, runtime"
+    })
+    public void testDecode(String name, String groupId, String artifactId, String type, String classifier, String version, String scope) {
+        final MavenCoordinate coordinate = new Decoder().decode(name);
+        assertEquals(groupId, coordinate.getGroupId());
+        assertEquals(artifactId, coordinate.getArtifactId());
+        assertEquals(type, coordinate.getType());
+        assertEquals(classifier, coordinate.getClassifier());
+        assertEquals(version, coordinate.getVersion());
+        assertEquals(scope, coordinate.getScope());
+        assertEquals(name, coordinate.toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "Alice", "a:b:c", "a::c:d", "a:b:c:d:e:f:g", "a:b:c:d:"})
+    public void testDecode_no_coordinate(String name) {
+        assertNull(new Decoder().decode(name));
+    }
+
+    @Test
+    public void testDecode_pools_components() {
+        final Decoder decoder = new Decoder();
+        final MavenCoordinate c1 = decoder.decode("org.a:x:jar:1.0:compile");
+        final MavenCoordinate c2 = decoder.decode(new String("org.a:y:jar:1.0:compile"));
+        assertSame(c1.getGroupId(), c2.getGroupId());
+        assertSame(c1.getType(), c2.getType());
+        assertSame(c1.getVersion(), c2.getVersion());
+        assertSame(c1.getScope(), c2.getScope());
+        assertSame(c1, decoder.decode(new String("org.a:x:jar:1.0:compile")));
+    }
+
+    @Test
+    public void testFilter_scope() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("1", "org.a:root:jar:1.0"))
+                .node(new TgfNode("2", "org.a:lib:jar:1.0:compile"))
+                .node(new TgfNode("3", "org.a:junit:jar:1.0:test"))
+                .node(new TgfNode("4", "no coordinate"))
+                .edge(new TgfEdge("1", "2", "compile"))
+                .edge(new TgfEdge("1", "3", "test"))
+                .edge(new TgfEdge("2", "4", ""))
+                .edge(new TgfEdge("3", "4", ""))
+                .build();
+        final TgfMavenCoordinates coordinates = TgfMavenCoordinates.of(tgfModel);
+        assertEquals(3, coordinates.size());
+        assertEquals("compile", coordinates.coordinate("2").getScope());
+        assertNull(coordinates.coordinate("4"));
+
+        final TgfModel expected = new TgfModel.Builder()
+                .node(new TgfNode("1", "org.a:root:jar:1.0"))
+                .node(new TgfNode("2", "org.a:lib:jar:1.0:compile"))
+                .node(new TgfNode("4", "no coordinate"))
+                .edge(new TgfEdge("1", "2", "compile"))
+                .edge(new TgfEdge("2", "4", ""))
+                .build();
+        assertEquals(expected, coordinates.filter(TgfMavenCoordinates.scopeIn("compile", "runtime")));
+        assertEquals(tgfModel, coordinates.filter(c -> true));
+    }
+
+    @Test
+    public void testOf_resource() throws IOException {
+        final TgfModel tgfModel = new TgfParser().parse(Paths.get("./src/test/resources/tgftools-dependency-tree.tgf"));
+        final TgfMavenCoordinates coordinates = TgfMavenCoordinates.of(tgfModel);
+        assertEquals(tgfModel.tgfNodeList.size(), coordinates.size());
+        final TgfModel compileOnly = coordinates.filter(TgfMavenCoordinates.scopeIn("compile"));
+        assertTrue(compileOnly.tgfNodeList.size() < tgfModel.tgfNodeList.size());
+        compileOnly.tgfNodeList.values().forEach(tgfNode
+                -> assertTrue(!tgfNode.name.endsWith(":test"), tgfNode.name));
+    }
+}
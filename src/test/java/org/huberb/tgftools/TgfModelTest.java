@@ -5,6 +5,12 @@
  */
 package org.huberb.tgftools;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import org.huberb.tgftools.TgfModel.TgfEdge;
 import org.huberb.tgftools.TgfModel.TgfNode;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -91,6 +97,199 @@ public class TgfModelTest {
         assertFalse(instance.equals(obj));
     }
 
+    /**
+     * Test of mergeDocuments method, of class TgfModel.
+     */
+    @Test
+    public void testMergeDocuments() {
+        final TgfModel merged = TgfModel.mergeDocuments(Arrays.asList(
+                createSimpleTgfModel1(),
+                createSimpleTgfModel1()));
+        final TgfModel expected = new TgfModel.Builder()
+                .node(new TgfNode("0:id1", "name1"))
+                .node(new TgfNode("1:id1", "name1"))
+                .edge(new TgfEdge("0:from1", "0:to1", "label1"))
+                .edge(new TgfEdge("1:from1", "1:to1", "label1"))
+                .build();
+        assertEquals(expected, merged);
+    }
+
+    /**
+     * Test of outgoing, incoming, and degree methods, of class TgfModel.
+     */
+    @Test
+    public void testOutgoingIncomingDegree() {
+        final TgfEdge e12 = new TgfEdge("1", "2", "a");
+        final TgfEdge e13 = new TgfEdge("1", "3", "b");
+        final TgfEdge e23 = new TgfEdge("2", "3", "c");
+        final TgfModel instance = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .node(new TgfNode("2", "B"))
+                .node(new TgfNode("3", "C"))
+                .node(new TgfNode("4", "D"))
+                .edge(e12)
+                .edge(e13)
+                .edge(e23)
+                .build();
+
+        assertEquals(Arrays.asList(e12, e13), instance.outgoing("1"));
+        assertEquals(Arrays.asList(), instance.incoming("1"));
+        assertEquals(Arrays.asList(e13, e23), instance.incoming("3"));
+        assertEquals(2, instance.degree("2"));
+        assertEquals(0, instance.degree("4"));
+        assertEquals(Arrays.asList(), instance.outgoing("unknown"));
+
+        // adding an edge drops the index
+        final TgfEdge e41 = new TgfEdge("4", "1", "d");
+        instance.addEdge(e41);
+        assertEquals(Arrays.asList(e41), instance.outgoing("4"));
+        assertEquals(Arrays.asList(e41), instance.incoming("1"));
+        assertEquals(3, instance.degree("1"));
+    }
+
+    /**
+     * Test of fingerprint method, of class TgfModel.
+     */
+    @Test
+    public void testFingerprint() {
+        final TgfModel instance = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .node(new TgfNode("2", "B"))
+                .edge(new TgfEdge("1", "2", "a"))
+                .edge(new TgfEdge("2", "1", null))
+                .build();
+        // node order is not significant, a duplicate node is ignored
+        final TgfModel sameContent = new TgfModel.Builder()
+                .node(new TgfNode("2", "B"))
+                .node(new TgfNode("1", "A"))
+                .node(new TgfNode("1", "duplicate"))
+                .edge(new TgfEdge("1", "2", "a"))
+                .edge(new TgfEdge("2", "1", null))
+                .build();
+        assertEquals(instance.fingerprint(), sameContent.fingerprint());
+        assertEquals(instance, sameContent);
+        assertEquals(instance.hashCode(), sameContent.hashCode());
+        assertEquals(32, instance.fingerprint().toString().length());
+
+        // edge order is significant
+        final TgfModel otherEdgeOrder = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .node(new TgfNode("2", "B"))
+                .edge(new TgfEdge("2", "1", null))
+                .edge(new TgfEdge("1", "2", "a"))
+                .build();
+        assertNotEquals(instance.fingerprint(), otherEdgeOrder.fingerprint());
+        assertNotEquals(instance, otherEdgeOrder);
+
+        // null, and empty label differ
+        final TgfModel emptyLabel = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .node(new TgfNode("2", "B"))
+                .edge(new TgfEdge("1", "2", "a"))
+                .edge(new TgfEdge("2", "1", ""))
+                .build();
+        assertNotEquals(instance.fingerprint(), emptyLabel.fingerprint());
+
+        // fingerprint is maintained while adding
+        final TgfModel.Fingerprint before = instance.fingerprint();
+        instance.addEdge(new TgfEdge("1", "1", "loop"));
+        assertNotEquals(before, instance.fingerprint());
+        assertNotEquals(instance, sameContent);
+    }
+
+    /**
+     * Test of edge deduplication, of class TgfModel.
+     */
+    @Test
+    public void testDeduplicateEdges() {
+        final TgfEdge e12 = new TgfEdge("1", "2", "a");
+        final TgfEdge e21 = new TgfEdge("2", "1", null);
+        final TgfModel instance = new TgfModel.Builder()
+                .deduplicateEdges()
+                .node(new TgfNode("1", "A"))
+                .edge(e12)
+                .edge(e21)
+                .edge(new TgfEdge("1", "2", "a"))
+                .edge(new TgfEdge("1", "2", "b"))
+                .edge(e12)
+                .build();
+        assertTrue(instance.isDeduplicatingEdges());
+        assertEquals(Arrays.asList(e12, e21, new TgfEdge("1", "2", "b")), instance.tgfEdgeList);
+        assertEquals(3, instance.multiplicity(0));
+        assertEquals(1, instance.multiplicity(1));
+        assertEquals(1, instance.multiplicity(2));
+
+        final TgfModel plain = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .edge(e12)
+                .edge(e21)
+                .edge(e12)
+                .edge(new TgfEdge("1", "2", "b"))
+                .edge(e12)
+                .build();
+        assertFalse(plain.isDeduplicatingEdges());
+        assertEquals(5, plain.tgfEdgeList.size());
+        assertEquals(1, plain.multiplicity(2));
+        final TgfModel deduplicated = plain.withDeduplicatedEdges();
+        assertEquals(instance, deduplicated);
+        assertEquals(instance.fingerprint(), deduplicated.fingerprint());
+
+        // same unique edges, other multiplicities
+        final TgfModel otherMultiplicities = new TgfModel.Builder()
+                .deduplicateEdges()
+                .node(new TgfNode("1", "A"))
+                .edge(e12)
+                .edge(e21)
+                .edge(new TgfEdge("1", "2", "b"))
+                .edge(new TgfEdge("1", "2", "b"))
+                .edge(e12)
+                .build();
+        assertNotEquals(instance.fingerprint(), otherMultiplicities.fingerprint());
+        assertNotEquals(instance, otherMultiplicities);
+    }
+
+    @Test
+    public void testDeduplicateEdges_unique_edges_after_duplicate() {
+        // the duplicate creates the multiplicities, the unique edges exceed them
+        final TgfModel.Builder builder = new TgfModel.Builder()
+                .deduplicateEdges()
+                .edge(new TgfEdge("0", "1", ""))
+                .edge(new TgfEdge("0", "1", ""));
+        for (int i = 1; i <= 38; i++) {
+            builder.edge(new TgfEdge(String.valueOf(i), String.valueOf(i + 1), ""));
+        }
+        final TgfModel instance = builder.build();
+        assertEquals(39, instance.tgfEdgeList.size());
+        assertEquals(2, instance.multiplicity(0));
+        for (int e = 1; e < 39; e++) {
+            assertEquals(1, instance.multiplicity(e));
+        }
+        assertEquals(instance, instance.withDeduplicatedEdges());
+        final String csv = new TgfConverters.CsvConverter().convert(instance);
+        assertTrue(csv.contains("\"edge\",\"38\",\"39\",\"\",\"1\""), csv);
+    }
+
+    @Test
+    public void testFingerprint_serialization() throws IOException, ClassNotFoundException {
+        final TgfModel instance = new TgfModel.Builder()
+                .deduplicateEdges()
+                .node(new TgfNode("1", "A"))
+                .edge(new TgfEdge("1", "2", "a"))
+                .edge(new TgfEdge("1", "2", "a"))
+                .edge(new TgfEdge("2", "1", null))
+                .build();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(instance);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            final TgfModel read = (TgfModel) ois.readObject();
+            assertEquals(instance.fingerprint(), read.fingerprint());
+            assertEquals(instance, read);
+            assertEquals(2, read.multiplicity(0));
+        }
+    }
+
     TgfModel createSimpleTgfModel1() {
         TgfModel instance = new TgfModel.Builder()
                 .node(new TgfNode("id1", "name1"))
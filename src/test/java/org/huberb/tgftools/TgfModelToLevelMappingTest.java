@@ -14,6 +14,8 @@ import org.huberb.tgftools.TgfModel.TgfNode;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
 /**
  *
@@ -50,6 +52,40 @@ public class TgfModelToLevelMappingTest {
         }
     }
 
+    /**
+     * Levels are longest paths, independent of edge order, and contained
+     * at cycles, and undeclared nodes.
+     */
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        // chain listed top-down, and bottom-up
+        "1 2,2 3,3 4|1,2,3,4",
+        "3 4,2 3,1 2|1,2,3,4",
+        // diamond with a shortcut
+        "1 2,2 3,1 3,3 4|1,2,3,4",
+        // undeclared node 9 between 1, and 2
+        "1 9,9 2|1,3,1,1",
+        // cycle 2 -> 3 -> 2 below 1, and a self loop of 4
+        "1 2,2 3,3 2,4 4|1,2,3,1"
+    })
+    public void testCalculateNodeLevel_longest_path(String edges, String expectedLevels) throws IOException {
+        final StringBuilder tgf = new StringBuilder("1 A\n2 B\n3 C\n4 D\n#\n");
+        for (String edge : edges.split(",")) {
+            tgf.append(edge).append('\n');
+        }
+        try (StringReader rr = new StringReader(tgf.toString())) {
+            final TgfModel tgfModel = new TgfParser().parse(rr);
+            final Map<String, Integer> result = new TgfModelToLevelMapping(tgfModel).calculateNodeLevel();
+            final String m = String.format("edges %s, result %s", edges, result);
+            assertEquals(5, result.size(), m);
+            assertEquals(0, result.get("@root@"), m);
+            final String[] levels = expectedLevels.split(",");
+            for (int i = 0; i < levels.length; i++) {
+                assertEquals(Integer.valueOf(levels[i]), result.get(String.valueOf(i + 1)), m);
+            }
+        }
+    }
+
     Integer xxx(TgfModel tgfModel, Map<String, Integer> m, String name) {
         Integer level = -1;
         final Optional<TgfNode> tgfNode = tgfModel.tgfNodeList.values().stream()
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.huberb.tgftools.TgfConverters.CsvConverter;
+import org.huberb.tgftools.TgfConverters.PumlNodeConverter;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfScanner.CharArrayScanner;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfNumericGraphTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf"})
+    public void testParseNumeric_equals_parse(String resName) throws IOException {
+        final Path path = Paths.get("./src/test/resources/", resName);
+        final TgfModel tgfModel = new TgfParser().parse(path);
+        final TgfNumericGraph graph = new TgfParser().parseNumeric(path);
+
+        assertEquals(tgfModel, graph.toTgfModel());
+        assertEquals(new CsvConverter().convert(tgfModel), graph.convert(new CsvConverter()));
+        assertEquals(tgfModel, TgfNumericGraph.of(tgfModel).toTgfModel());
+    }
+
+    @Test
+    public void testParseNumeric_mixed_ids(@TempDir Path tempDir) throws IOException {
+        final String tgf = ""
+                + "1 A\n"
+                + "007 B\n"
+                + "--\n"
+                + "a1 C\n"
+                + "1 duplicate\n"
+                + "#\n"
+                + "1 007 x\n"
+                + "007 7\n"
+                + "9223372036854775807 -9223372036854775808\n"
+                + "#\n"
+                + "a1 1\n";
+        final Path path = tempDir.resolve("mixed.tgf");
+        Files.write(path, tgf.getBytes(StandardCharsets.UTF_8));
+        final TgfNumericGraph graph = new TgfParser().parseNumeric(path);
+
+        assertEquals(new TgfParser().parse(new StringReader(tgf)), graph.toTgfModel());
+        assertEquals(3, graph.nodeCount());
+        assertEquals(4, graph.edgeCount());
+        assertEquals(6, graph.idCount());
+        assertTrue(graph.isNumeric(graph.idNumber(1L)));
+        assertFalse(graph.isNumeric(graph.idNumber("007")));
+        assertEquals(7L, graph.numericId(graph.idNumber("7")));
+        assertEquals(Long.MIN_VALUE, graph.numericId(graph.edgeTarget(2)));
+        assertEquals("-9223372036854775808", graph.edgeTo(2));
+        assertEquals(graph.idNumber("1"), graph.edgeSource(0));
+        assertEquals(-1, graph.idNumber(2L));
+        assertEquals(-1, graph.idNumber("b"));
+        assertThrows(IllegalArgumentException.class, () -> graph.numericId(graph.idNumber("a1")));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, true",
+        "4711, true",
+        "-1, true",
+        "9223372036854775807, true",
+        "-9223372036854775808, true",
+        "9223372036854775808, false",
+        "-9223372036854775809, false",
+        "007, false",
+        "-0, false",
+        "+1, false",
+        "-, false",
+        "1a, false",
+        "a1, false"
+    })
+    public void testParseCanonicalLong(String id, boolean expected) {
+        final CharArrayScanner scanner = new CharArrayScanner(id.toCharArray());
+        assertEquals(expected, scanner.parseCanonicalLong(0, id.length()), id);
+        if (expected) {
+            assertEquals(Long.parseLong(id), scanner.longValue);
+        }
+    }
+
+    @Test
+    public void testBuilder_as_parse_listener() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .node(new TgfNode("x", "B"))
+                .edge(new TgfEdge("1", "x", "a"))
+                .edge(new TgfEdge("x", "2", ""))
+                .build();
+        final TgfNumericGraph graph = TgfNumericGraph.of(tgfModel);
+
+        assertEquals(tgfModel, graph.toTgfModel());
+        assertEquals(new PumlNodeConverter().convert(tgfModel), graph.convert(new PumlNodeConverter()));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.huberb.tgftools.TgfConverters.AbstractTgfRecordConverter;
+import org.huberb.tgftools.TgfConverters.CsvConverter;
+import org.huberb.tgftools.TgfConverters.DatalogPropertySchemaConverter;
+import org.huberb.tgftools.TgfConverters.DatalogValueSchemaConverter;
+import org.huberb.tgftools.TgfConverters.JsonConverter;
+import org.huberb.tgftools.TgfConverters.PumlNodeConverter;
+import org.huberb.tgftools.TgfConverters.YamlConverter;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfOffHeapModelTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf"})
+    public void testBuilder_convert_equals_model_convert(String resName) throws IOException {
+        final Path path = Paths.get("./src/test/resources/", resName);
+        final TgfModel tgfModel = new TgfParser().parse(path);
+        final TgfOffHeapModel.Builder builder = new TgfOffHeapModel.Builder();
+        new TgfParser().parse(path, builder);
+        try (TgfOffHeapModel offHeapModel = builder.build()) {
+            assertEquals(tgfModel, offHeapModel.toTgfModel());
+            assertTrue(offHeapModel.offHeapSize() > 0);
+
+            final List<AbstractTgfRecordConverter> converters = Arrays.asList(
+                    new PumlNodeConverter(),
+                    new CsvConverter(),
+                    new JsonConverter(),
+                    new YamlConverter(),
+                    new DatalogValueSchemaConverter(),
+                    new DatalogPropertySchemaConverter());
+            for (AbstractTgfRecordConverter converter : converters) {
+                assertEquals(converter.convert(tgfModel), offHeapModel.convert(converter));
+            }
+        }
+    }
+
+    @Test
+    public void testOf_nulls_duplicates_and_non_ascii() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("1", "ä€"))
+                .node(new TgfNode("2", null))
+                .node(new TgfNode("1", "duplicate"))
+                .edge(new TgfEdge("1", "2", null))
+                .edge(new TgfEdge("2", "3", "compile"))
+                .edge(new TgfEdge("3", "1", "compile"))
+                .build();
+        try (TgfOffHeapModel offHeapModel = TgfOffHeapModel.of(tgfModel)) {
+            assertEquals(2, offHeapModel.nodeCount());
+            assertEquals(3, offHeapModel.edgeCount());
+            assertEquals("ä€", offHeapModel.nodeName(0));
+            assertNull(offHeapModel.nodeName(1));
+            assertNull(offHeapModel.edgeLabel(0));
+            assertEquals("3", offHeapModel.edgeTo(1));
+            assertEquals(tgfModel, offHeapModel.toTgfModel());
+        }
+    }
+
+    @Test
+    public void testClose() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .edge(new TgfEdge("1", "1", "self"))
+                .build();
+        final TgfOffHeapModel offHeapModel = TgfOffHeapModel.of(tgfModel);
+        offHeapModel.close();
+
+        assertEquals(0, offHeapModel.offHeapSize());
+        assertEquals("1", offHeapModel.nodeId(0));
+        assertThrows(IllegalStateException.class, () -> offHeapModel.nodeName(0));
+        assertThrows(IllegalStateException.class, () -> offHeapModel.edgeLabel(0));
+    }
+
+    @Test
+    public void testClose_frees_direct_memory() {
+        final BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(bufferPool -> "direct".equals(bufferPool.getName()))
+                .findFirst().get();
+        final TgfOffHeapModel offHeapModel = TgfOffHeapModel.of(new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .build());
+        final long used = direct.getMemoryUsed();
+        offHeapModel.close();
+
+        assertEquals(0, offHeapModel.offHeapSize());
+        assertTrue(direct.getMemoryUsed() <= used - TgfStringArena.CHUNK_SIZE, used + " " + direct.getMemoryUsed());
+        // closing again is a noop
+        offHeapModel.close();
+    }
+
+    @Test
+    public void testOf_rejects_deduplicated_edges() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .deduplicateEdges()
+                .node(new TgfNode("1", "A"))
+                .edge(new TgfEdge("1", "1", "self"))
+                .edge(new TgfEdge("1", "1", "self"))
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> TgfOffHeapModel.of(tgfModel));
+    }
+}
@@ -10,6 +10,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -42,4 +45,24 @@ public class TgfParserResourcesTest {
             }
         }
     }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+        "tgftools-dependency-tree.tgf, 10, 9",
+        "evaluationtable-dependency-tree.tgf, 19, 18"
+    })
+    public void testParseResourcesFromPath(String resName, int countOfNodes, int countOfEdges) throws IOException {
+        final Path path = Paths.get("./src/test/resources/", resName);
+        final TgfModel tgfModel = new TgfParser().parse(path);
+        assertNotNull(tgfModel);
+        final String m = "" + tgfModel.toString();
+        assertEquals(countOfNodes, tgfModel.tgfNodeList.size(), m);
+        assertEquals(countOfEdges, tgfModel.tgfEdgeList.size(), m);
+
+        try (final InputStream is = this.getClass().getClassLoader().getResourceAsStream(resName);
+                final Reader rr = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            assertEquals(new TgfParser().parse(rr), tgfModel, m);
+        }
+        assertEquals(Collections.singletonList(tgfModel), new TgfParser().parseDocuments(path), m);
+    }
 }
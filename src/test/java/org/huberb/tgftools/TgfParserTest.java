@@ -15,11 +15,32 @@
  */
 package org.huberb.tgftools;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import org.huberb.tgftools.TgfParser.ITgfParseListener;
 import org.huberb.tgftools.TgfParser.ParsingTgfStatus;
 import org.huberb.tgftools.TgfParser.TgfToken;
 import org.huberb.tgftools.TgfParser.TgfTokenValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -111,4 +132,415 @@ public class TgfParserTest {
         assertEquals("", tgfToken.tgfEdge.getLabel());
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "   ",
+        "--",
+        " -- ",
+        "'",
+        "\t'\t"})
+    public void testTokenize_empty_X(String line) {
+        final TgfParser tgfParser = new TgfParser();
+        TgfTokenValue tgfToken;
+        tgfToken = tgfParser.tokenize(ParsingTgfStatus.parsingNodes, line);
+        assertEquals(TgfToken.empty, tgfToken.token);
+        tgfToken = tgfParser.tokenize(ParsingTgfStatus.parsingEdges, line);
+        assertEquals(TgfToken.empty, tgfToken.token);
+    }
+
+    @Test
+    public void testTokenize_node_label_with_blanks_and_tabs() {
+        final TgfParser tgfParser = new TgfParser();
+        TgfTokenValue tgfToken;
+        tgfToken = tgfParser.tokenize(ParsingTgfStatus.parsingNodes, "id1\t  node label 1\t");
+        assertEquals(TgfToken.node, tgfToken.token);
+        assertEquals("id1", tgfToken.tgfNode.getId());
+        assertEquals("node label 1", tgfToken.tgfNode.getName());
+    }
+
+    @Test
+    public void testParse_crlf_comments_and_long_lines() throws IOException {
+        final StringBuilder longLabel = new StringBuilder();
+        for (int i = 0; i < 3 * TgfParser.INITIAL_BUFFER_SIZE; i++) {
+            longLabel.append((char) ('a' + i % 26));
+        }
+        final String tgf = ""
+                + "1 A\r\n"
+                + "--\r\n"
+                + "2 " + longLabel + "\r\n"
+                + "#\r\n"
+                + "'\r\n"
+                + "1 2 a\r\n"
+                + "2 1";
+        try (StringReader rr = new StringReader(tgf)) {
+            final TgfModel tgfModel = new TgfParser().parse(rr);
+            final TgfModel expected = new TgfModel.Builder()
+                    .node(new TgfNode("1", "A"))
+                    .node(new TgfNode("2", longLabel.toString()))
+                    .edge(new TgfEdge("1", "2", "a"))
+                    .edge(new TgfEdge("2", "1", ""))
+                    .build();
+            assertEquals(expected, tgfModel);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {23, 24, 31, 64, Integer.MAX_VALUE})
+    public void testParse_path_with_segment_size_X(int maxMappedSegmentSize, @TempDir Path tempDir) throws IOException {
+        final String tgf = ""
+                + "1 Äpfel\r\n"
+                + "2 Birnen über Bäume\n"
+                + "-- comment\n"
+                + "#\n"
+                + "1  2 grün\n"
+                + "2 1\n";
+        final Path path = tempDir.resolve("segments.tgf");
+        Files.write(path, tgf.getBytes(StandardCharsets.UTF_8));
+
+        final TgfParser tgfParser = new TgfParser();
+        tgfParser.maxMappedSegmentSize = maxMappedSegmentSize;
+        final TgfModel tgfModel = tgfParser.parse(path);
+        try (StringReader rr = new StringReader(tgf)) {
+            assertEquals(new TgfParser().parse(rr), tgfModel);
+        }
+        assertEquals("Birnen über Bäume", tgfModel.tgfNodeList.get("2").getName());
+        assertEquals("grün", tgfModel.tgfEdgeList.get(0).getLabel());
+    }
+
+    @Test
+    public void testParse_listener() throws IOException {
+        final String tgf = ""
+                + "1 A\n"
+                + "2 B\n"
+                + "#\n"
+                + "1 2 a\n"
+                + "#\n"
+                + "2 1\n";
+        final List<String> events = new ArrayList<>();
+        final ITgfParseListener listener = new ITgfParseListener() {
+            @Override
+            public void onNode(TgfNode tgfNode) {
+                events.add("node " + tgfNode.getId() + " " + tgfNode.getName());
+            }
+
+            @Override
+            public void onSectionSeparator() {
+                events.add("#");
+            }
+
+            @Override
+            public void onEdge(TgfEdge tgfEdge) {
+                events.add("edge " + tgfEdge.getFrom() + " " + tgfEdge.getTo() + " " + tgfEdge.getLabel());
+            }
+
+            @Override
+            public void onEnd() {
+                events.add("end");
+            }
+        };
+        try (StringReader rr = new StringReader(tgf)) {
+            new TgfParser().parse(rr, listener);
+        }
+        assertEquals(Arrays.asList(
+                "node 1 A",
+                "node 2 B",
+                "#",
+                "edge 1 2 a",
+                "edge 2 1 ",
+                "end"), events);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void testParseParallel_parallelism_X(int parallelism, @TempDir Path tempDir) throws IOException {
+        final StringBuilder tgf = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            tgf.append(String.format("%d node%d%n", i, i));
+        }
+        tgf.append(String.format("#%n"));
+        for (int i = 0; i < 1000; i++) {
+            tgf.append(String.format("%d %d label%d%n", i % 100, (i * 7) % 100, i % 3));
+            if (i % 100 == 0) {
+                tgf.append(String.format("--%n#%n"));
+            }
+        }
+        final Path path = tempDir.resolve("parallel.tgf");
+        Files.write(path, tgf.toString().getBytes(StandardCharsets.UTF_8));
+
+        final TgfModel expected = new TgfParser().parse(path);
+        assertEquals(1000, expected.tgfEdgeList.size());
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final TgfParser tgfParser = new TgfParser();
+            tgfParser.minParallelChunkSize = 64;
+            tgfParser.maxMappedSegmentSize = 4096;
+            assertEquals(expected, tgfParser.parseParallel(path, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testNodeStream_and_edgeStream(@TempDir Path tempDir) throws IOException {
+        final StringBuilder tgf = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            tgf.append(String.format("%d node%d%n", i, i));
+        }
+        tgf.append(String.format("#%n"));
+        for (int i = 0; i < 2000; i++) {
+            tgf.append(String.format("%d %d label%d%n", i % 50, (i * 7) % 50, i % 3));
+        }
+        final Path path = tempDir.resolve("stream.tgf");
+        Files.write(path, tgf.toString().getBytes(StandardCharsets.UTF_8));
+        final TgfModel expected = new TgfParser().parse(path);
+
+        final TgfParser tgfParser = new TgfParser();
+        tgfParser.minParallelChunkSize = 128;
+        tgfParser.maxMappedSegmentSize = 8192;
+        assertEquals(new ArrayList<>(expected.tgfNodeList.values()),
+                tgfParser.nodeStream(path).collect(Collectors.toList()));
+        assertEquals(expected.tgfEdgeList,
+                tgfParser.edgeStream(path).collect(Collectors.toList()));
+        assertEquals(expected.tgfEdgeList,
+                tgfParser.edgeStream(path).parallel().collect(Collectors.toList()));
+        assertEquals(expected.tgfEdgeList.stream().filter(e -> e.getLabel().equals("label1")).count(),
+                tgfParser.edgeStream(path).parallel().filter(e -> e.getLabel().equals("label1")).count());
+        assertTrue(tgfParser.edgeStream(path).anyMatch(e -> e.getFrom().equals("3")));
+    }
+
+    @Test
+    public void testParse_interns_ids_and_labels(@TempDir Path tempDir) throws IOException {
+        final String tgf = ""
+                + "1 A\n"
+                + "2 B\n"
+                + "#\n"
+                + "1 2 compile\n"
+                + "2 1 compile\n";
+        final Path path = tempDir.resolve("intern.tgf");
+        Files.write(path, tgf.getBytes(StandardCharsets.UTF_8));
+        final TgfParser tgfParser = new TgfParser();
+        tgfParser.minParallelChunkSize = 1;
+        for (TgfModel tgfModel : Arrays.asList(
+                tgfParser.parse(new StringReader(tgf)),
+                tgfParser.parse(path),
+                tgfParser.parseParallel(path))) {
+            final TgfEdge e0 = tgfModel.tgfEdgeList.get(0);
+            final TgfEdge e1 = tgfModel.tgfEdgeList.get(1);
+            assertSame(tgfModel.tgfNodeList.get("1").getId(), e0.getFrom());
+            assertSame(tgfModel.tgfNodeList.get("2").getId(), e0.getTo());
+            assertSame(e0.getFrom(), e1.getTo());
+            assertSame(e0.getLabel(), e1.getLabel());
+        }
+    }
+
+    @Test
+    public void testParse_shared_parser_concurrently(@TempDir Path tempDir) throws Exception {
+        final int inputCount = 16;
+        final List<String> tgfs = new ArrayList<>();
+        final List<Path> paths = new ArrayList<>();
+        final List<TgfModel> expected = new ArrayList<>();
+        for (int k = 0; k < inputCount; k++) {
+            final TgfModel.Builder builder = new TgfModel.Builder();
+            final StringBuilder tgf = new StringBuilder();
+            for (int i = 0; i < 20 + k; i++) {
+                tgf.append(String.format("%d-%d node%d%n", k, i, i));
+                builder.node(new TgfNode(k + "-" + i, "node" + i));
+            }
+            tgf.append(String.format("#%n"));
+            for (int i = 0; i < 200 + k; i++) {
+                final String from = k + "-" + (i % 20);
+                final String to = k + "-" + ((i * 3) % 20);
+                tgf.append(String.format("%s %s label%d%n", from, to, k));
+                builder.edge(new TgfEdge(from, to, "label" + k));
+            }
+            final Path path = tempDir.resolve("concurrent" + k + ".tgf");
+            Files.write(path, tgf.toString().getBytes(StandardCharsets.UTF_8));
+            tgfs.add(tgf.toString());
+            paths.add(path);
+            expected.add(builder.build());
+        }
+
+        final TgfParser sharedTgfParser = new TgfParser();
+        sharedTgfParser.minParallelChunkSize = 256;
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int round = 0; round < 400; round++) {
+                final int k = round % inputCount;
+                final int variant = round % 3;
+                futures.add(executorService.submit(() -> {
+                    final TgfModel tgfModel;
+                    if (variant == 0) {
+                        tgfModel = sharedTgfParser.parse(new StringReader(tgfs.get(k)));
+                    } else if (variant == 1) {
+                        tgfModel = sharedTgfParser.parse(paths.get(k));
+                    } else {
+                        tgfModel = sharedTgfParser.parseParallel(paths.get(k));
+                    }
+                    return expected.get(k).equals(tgfModel);
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 1 << 16})
+    public void testParseAsync_read_buffer_size_X(int asyncReadBufferSize, @TempDir Path tempDir) throws Exception {
+        final StringBuilder longLabel = new StringBuilder();
+        for (int i = 0; i < 2 * TgfParser.INITIAL_BUFFER_SIZE; i++) {
+            longLabel.append((char) ('a' + i % 26));
+        }
+        final String tgf = ""
+                + "1 Äpfel\r\n"
+                + "2 " + longLabel + "\n"
+                + "#\n"
+                + "1  2 grün\n"
+                + "2 1";
+        final Path path = tempDir.resolve("async.tgf");
+        Files.write(path, tgf.getBytes(StandardCharsets.UTF_8));
+
+        final TgfParser tgfParser = new TgfParser();
+        tgfParser.asyncReadBufferSize = asyncReadBufferSize;
+        final TgfModel tgfModel = tgfParser.parseAsync(path).get();
+        assertEquals(new TgfParser().parse(path), tgfModel);
+        assertEquals(2, tgfModel.tgfEdgeList.size());
+    }
+
+    @Test
+    public void testParseAsync_missing_file(@TempDir Path tempDir) {
+        final Path path = tempDir.resolve("missing.tgf");
+        assertThrows(ExecutionException.class, () -> new TgfParser().parseAsync(path).get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {32, 64, Integer.MAX_VALUE})
+    public void testParseDocuments_segment_size_X(int maxMappedSegmentSize, @TempDir Path tempDir) throws IOException {
+        final List<String> documents = Arrays.asList(
+                "1 g:a:jar:1.0\n2 g:b:jar:1.0\n#\n1 2 compile\n",
+                "-- comment\n--\n1 g:c:jar:1.0\n3 g:d:jar:1.0\n#\n1 3 test\n3 1\n",
+                "\u00e4 g:\u00e4:jar:1.0\n#\n");
+        final Path path = tempDir.resolve("documents.tgf");
+        Files.write(path, String.join("", documents).getBytes(StandardCharsets.UTF_8));
+
+        final TgfParser tgfParser = new TgfParser();
+        tgfParser.maxMappedSegmentSize = maxMappedSegmentSize;
+        final List<TgfModel> tgfModelList = tgfParser.parseDocuments(path);
+        assertEquals(documents.size(), tgfModelList.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(new TgfParser().parse(new StringReader(documents.get(i))), tgfModelList.get(i), "document " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void testParseDocuments_parallelism_X(int parallelism, @TempDir Path tempDir) throws IOException {
+        final StringBuilder tgf = new StringBuilder();
+        final List<TgfModel> expected = new ArrayList<>();
+        for (int d = 0; d < 20; d++) {
+            final StringBuilder document = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                document.append(String.format("%d module%d:node%d%n", i, d, i));
+            }
+            document.append(String.format("#%n"));
+            for (int i = 1; i < 10; i++) {
+                document.append(String.format("%d %d compile%n", i / 2, i));
+            }
+            expected.add(new TgfParser().parse(new StringReader(document.toString())));
+            tgf.append(document);
+        }
+        final Path path = tempDir.resolve("documents.tgf");
+        Files.write(path, tgf.toString().getBytes(StandardCharsets.UTF_8));
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            assertEquals(expected, new TgfParser().parseDocuments(path, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseDocuments_single_document(@TempDir Path tempDir) throws IOException {
+        final Path path = tempDir.resolve("single.tgf");
+        Files.write(path, "1 A\n2 B\n#\n1 2 a\n#\n2 1\n".getBytes(StandardCharsets.UTF_8));
+
+        final List<TgfModel> tgfModelList = new TgfParser().parseDocuments(path);
+        assertEquals(Arrays.asList(new TgfParser().parse(path)), tgfModelList);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "1 A\n2 B\n#\n1 2 a\n1 3 dangling\n2 1 b\n",
+        "1 A\n2 B\n#\n1 3 dangling\n3 4\n",
+        "1 A\n2 B\n#\n1 3 dangling\n2 1 b\n#\n2 1 c\n"})
+    public void testParseDocuments_dangling_edge_X(String tgf, @TempDir Path tempDir) throws IOException {
+        final Path path = tempDir.resolve("dangling.tgf");
+        Files.write(path, tgf.getBytes(StandardCharsets.UTF_8));
+
+        final List<TgfModel> tgfModelList = new TgfParser().parseDocuments(path);
+        assertEquals(Arrays.asList(new TgfParser().parse(path)), tgfModelList);
+    }
+
+    @Test
+    public void testParseDocuments_dangling_edge_before_next_document(@TempDir Path tempDir) throws IOException {
+        final List<String> documents = Arrays.asList(
+                "1 A\n2 B\n#\n1 3 dangling\n1 2 a\n",
+                "4 C\n5 D\n#\n4 5 b\n");
+        final Path path = tempDir.resolve("documents.tgf");
+        Files.write(path, String.join("", documents).getBytes(StandardCharsets.UTF_8));
+
+        final List<TgfModel> tgfModelList = new TgfParser().parseDocuments(path);
+        assertEquals(documents.size(), tgfModelList.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(new TgfParser().parse(new StringReader(documents.get(i))), tgfModelList.get(i), "document " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        // a node having a single field is no edge
+        "1 A\n2 B\n#\n1 2\n|7\n8 B\n#\n7 8\n",
+        "1 A\n2 B\n#\n1 2\n|7\n#\n",
+        // a single field node, whose id is a node id of the first document
+        "1 A\n2 B\n#\n1 2\n|3 C\n1\n#\n3 1\n"})
+    public void testParseDocuments_node_without_name_X(String tgf, @TempDir Path tempDir) throws IOException {
+        final List<String> documents = Arrays.asList(tgf.split("\\|"));
+        final Path path = tempDir.resolve("documents.tgf");
+        Files.write(path, String.join("", documents).getBytes(StandardCharsets.UTF_8));
+
+        final List<TgfModel> tgfModelList = new TgfParser().parseDocuments(path);
+        assertEquals(documents.size(), tgfModelList.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(new TgfParser().parse(new StringReader(documents.get(i))), tgfModelList.get(i), "document " + i);
+        }
+    }
+
+    @Test
+    public void testParseDocuments_document_separator(@TempDir Path tempDir) throws IOException {
+        // the name of node 3 is a node id of the first document
+        final List<String> documents = Arrays.asList(
+                "1 A\n2 B\n#\n1 2\n",
+                "3 1\n#\n3 3\n");
+        final Path path = tempDir.resolve("documents.tgf");
+        Files.write(path, String.join("=== next ===\n", documents).getBytes(StandardCharsets.UTF_8));
+
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final List<TgfModel> tgfModelList = new TgfParser().parseDocuments(path, " === next === ", pool);
+        assertEquals(documents.size(), tgfModelList.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(new TgfParser().parse(new StringReader(documents.get(i))), tgfModelList.get(i), "document " + i);
+        }
+        // without separator the boundary is hidden
+        Files.write(path, String.join("", documents).getBytes(StandardCharsets.UTF_8));
+        assertEquals(1, new TgfParser().parseDocuments(path).size());
+        assertThrows(IllegalArgumentException.class, () -> new TgfParser().parseDocuments(path, "#", pool));
+        assertThrows(IllegalArgumentException.class, () -> new TgfParser().parseDocuments(path, "-- x", pool));
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfReachabilityTest {
+
+    // 1 -> 2 -> 4 -> 5, 1 -> 3 -> 4, 5 -> 2 closes a cycle, 6 is isolated
+    static final String tgf = ""
+            + "1 A\n"
+            + "2 B\n"
+            + "3 C\n"
+            + "4 D\n"
+            + "5 E\n"
+            + "6 F\n"
+            + "#\n"
+            + "1 2\n"
+            + "1 3\n"
+            + "2 4\n"
+            + "3 4\n"
+            + "4 5\n"
+            + "5 2\n"
+            + "5 7\n"
+            + "";
+
+    TgfReachability instance;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        instance = TgfReachability.of(new TgfParser().parse(new StringReader(tgf)));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+        "1;2,3,4,5,7",
+        "3;2,4,5,7",
+        "2;2,4,5,7",
+        "6;",
+        "7;",
+        "3,6;2,4,5,7"
+    }, delimiter = ';')
+    public void testDescendants(String nodeIds, String expected) {
+        assertEquals(expected == null ? Collections.emptyList() : Arrays.asList(expected.split(",")),
+                instance.descendants(nodeIds.split(",")));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+        "1;",
+        "4;1,2,3,4,5",
+        "7;1,2,3,4,5",
+        "3,6;1"
+    }, delimiter = ';')
+    public void testAncestors(String nodeIds, String expected) {
+        assertEquals(expected == null ? Collections.emptyList() : Arrays.asList(expected.split(",")),
+                instance.ancestors(nodeIds.split(",")));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+        "1;1;1",
+        "1;2;1,2",
+        "1;5;1,2,4,5",
+        "3;2;3,4,5,2",
+        "1;7;1,2,4,5,7",
+        "2;1;",
+        "1;6;"
+    }, delimiter = ';')
+    public void testPath(String from, String to, String expected) {
+        assertEquals(expected == null ? Collections.emptyList() : Arrays.asList(expected.split(",")),
+                instance.path(from, to));
+    }
+
+    @Test
+    public void testUnknownNode() {
+        assertThrows(IllegalArgumentException.class, () -> instance.descendants("8"));
+        assertThrows(IllegalArgumentException.class, () -> instance.path("1", "8"));
+        assertNull(instance.nodeName("8"));
+        assertNull(instance.nodeName("7"));
+        assertEquals("A", instance.nodeName("1"));
+    }
+}
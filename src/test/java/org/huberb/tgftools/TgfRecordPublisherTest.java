@@ -0,0 +1,237 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.huberb.tgftools.TgfConverters.CsvConverter;
+import org.huberb.tgftools.TgfConverters.DatalogPropertySchemaConverter;
+import org.huberb.tgftools.TgfConverters.DatalogValueSchemaConverter;
+import org.huberb.tgftools.TgfConverters.ITgfConverterToString;
+import org.huberb.tgftools.TgfConverters.JsonConverter;
+import org.huberb.tgftools.TgfConverters.PumlMindmapConverter;
+import org.huberb.tgftools.TgfConverters.PumlNodeConverter;
+import org.huberb.tgftools.TgfConverters.YamlConverter;
+import org.huberb.tgftools.TgfFlow.Subscriber;
+import org.huberb.tgftools.TgfFlow.Subscription;
+import org.huberb.tgftools.TgfFlow.TgfRecord;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfRecordPublisherTest {
+
+    final String tgf = ""
+            + "1 A\n"
+            + "2 B\n"
+            + "1 duplicate\n"
+            + "--\n"
+            + "3 C\n"
+            + "#\n"
+            + "1 2 A->B\n"
+            + "2 3\n"
+            + "#\n"
+            + "1 3 A->C\n";
+
+    @TempDir
+    Path tempDir;
+
+    Path writeTgf(String s) throws IOException {
+        final Path path = tempDir.resolve("publisher.tgf");
+        Files.write(path, s.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    @Test
+    public void testPublisher_records_in_order() throws Exception {
+        final Path path = writeTgf(tgf);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        new TgfRecordPublisher(new TgfParser(), path).subscribe(subscriber);
+
+        final List<TgfRecord> expected = Arrays.asList(
+                TgfRecord.node(new TgfNode("1", "A")),
+                TgfRecord.node(new TgfNode("2", "B")),
+                TgfRecord.node(new TgfNode("1", "duplicate")),
+                TgfRecord.node(new TgfNode("3", "C")),
+                TgfRecord.sectionSeparator(),
+                TgfRecord.edge(new TgfEdge("1", "2", "A->B")),
+                TgfRecord.edge(new TgfEdge("2", "3", "")),
+                TgfRecord.edge(new TgfEdge("1", "3", "A->C")));
+        assertEquals(expected, subscriber.completion.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPublisher_delivers_no_more_than_requested() throws Exception {
+        final Path path = writeTgf(tgf);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(3);
+        new TgfRecordPublisher(new TgfParser(), path, Runnable::run).subscribe(subscriber);
+
+        assertEquals(3, subscriber.records.size());
+        assertTrue(!subscriber.completion.isDone());
+
+        subscriber.subscription.request(100);
+        assertEquals(8, subscriber.completion.get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void testPublisher_cancel_stops_delivery() throws Exception {
+        final Path path = writeTgf(tgf);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(2);
+        new TgfRecordPublisher(new TgfParser(), path, Runnable::run).subscribe(subscriber);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(100);
+
+        assertEquals(2, subscriber.records.size());
+        assertTrue(!subscriber.completion.isDone());
+    }
+
+    @Test
+    public void testPublisher_throwing_subscriber_is_cancelled() throws Exception {
+        final Path path = writeTgf(tgf);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(TgfRecord item) {
+                super.onNext(item);
+                if (records.size() == 2) {
+                    throw new IllegalStateException("subscriber failed");
+                }
+            }
+        };
+        new TgfRecordPublisher(new TgfParser(), path, Runnable::run).subscribe(subscriber);
+
+        assertEquals(2, subscriber.records.size());
+        assertTrue(!subscriber.completion.isDone());
+
+        subscriber.subscription.request(100);
+        assertEquals(2, subscriber.records.size());
+        assertTrue(!subscriber.completion.isDone());
+    }
+
+    @Test
+    public void testPublisher_non_positive_request_signals_error() throws Exception {
+        final Path path = writeTgf(tgf);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        new TgfRecordPublisher(new TgfParser(), path, Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        final ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> subscriber.completion.get(10, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testPublisher_missing_file_signals_error() {
+        final Path path = tempDir.resolve("missing.tgf");
+        final CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        new TgfRecordPublisher(new TgfParser(), path).subscribe(subscriber);
+
+        final ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> subscriber.completion.get(10, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IOException);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 256})
+    public void testConverterSubscriber_equals_convert(int batchSize) throws Exception {
+        final Path path = writeTgf(tgf);
+        final TgfModel tgfModel = new TgfParser().parse(new StringReader(tgf));
+        final List<ITgfConverterToString> converters = Arrays.asList(
+                new PumlNodeConverter(),
+                new PumlMindmapConverter(),
+                new CsvConverter(),
+                new JsonConverter(),
+                new YamlConverter(),
+                new DatalogValueSchemaConverter(),
+                new DatalogPropertySchemaConverter());
+        for (ITgfConverterToString converter : converters) {
+            final TgfConverterSubscriber subscriber = new TgfConverterSubscriber(converter, new StringBuilder(), batchSize);
+            new TgfRecordPublisher(new TgfParser(), path).subscribe(subscriber);
+
+            final String converted = subscriber.getCompletion().get(10, TimeUnit.SECONDS).toString();
+            assertEquals(converter.convert(tgfModel), converted, converter.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void testConverterSubscriber_nodes_only() throws InterruptedException, ExecutionException, TimeoutException, IOException {
+        final String nodesOnly = "1 A\n2 B\n";
+        final Path path = writeTgf(nodesOnly);
+        final TgfModel tgfModel = new TgfParser().parse(new StringReader(nodesOnly));
+        final JsonConverter converter = new JsonConverter();
+        final TgfConverterSubscriber subscriber = new TgfConverterSubscriber(converter, new StringBuilder());
+        new TgfRecordPublisher(new TgfParser(), path).subscribe(subscriber);
+
+        assertEquals(converter.convert(tgfModel), subscriber.getCompletion().get(10, TimeUnit.SECONDS).toString());
+    }
+
+    /**
+     * Subscriber collecting records, requesting an initial demand only.
+     */
+    static class CollectingSubscriber implements Subscriber<TgfRecord> {
+
+        final long initialRequest;
+        final List<TgfRecord> records = new ArrayList<>();
+        final CompletableFuture<List<TgfRecord>> completion = new CompletableFuture<>();
+        Subscription subscription;
+
+        CollectingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(TgfRecord item) {
+            records.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completion.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.complete(records);
+        }
+    }
+}
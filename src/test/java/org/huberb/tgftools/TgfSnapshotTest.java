@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfSnapshotTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf"})
+    public void testWrite_read_path(String resName, @TempDir Path tempDir) throws IOException {
+        final TgfModel tgfModel = new TgfParser().parse(Paths.get("./src/test/resources/", resName));
+        final Path snapshot = tempDir.resolve(resName + ".snapshot");
+        TgfSnapshot.write(tgfModel, snapshot);
+
+        assertEquals(tgfModel, TgfSnapshot.read(snapshot));
+    }
+
+    @Test
+    public void testWrite_read_buffer() throws IOException {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("1", "ä€"))
+                .node(new TgfNode("2", null))
+                .edge(new TgfEdge("1", "2", "compile"))
+                .edge(new TgfEdge("2", "1", "compile"))
+                .edge(new TgfEdge("2", "3", ""))
+                .build();
+        final byte[] bytes = toBytes(tgfModel);
+
+        final TgfModel read = TgfSnapshot.read(ByteBuffer.wrap(bytes));
+        assertEquals(tgfModel, read);
+        // equal strings are shared
+        assertSame(read.tgfEdgeList.get(0).label, read.tgfEdgeList.get(1).label);
+        assertSame(read.tgfEdgeList.get(0).from, read.tgfNodeList.get("1").id);
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(tgfModel, TgfSnapshot.read(direct));
+    }
+
+    @Test
+    public void testWrite_read_deduplicated_edges() throws IOException {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .deduplicateEdges()
+                .node(new TgfNode("1", "A"))
+                .edge(new TgfEdge("1", "1", "self"))
+                .edge(new TgfEdge("1", "2", null))
+                .edge(new TgfEdge("1", "1", "self"))
+                .build();
+
+        final TgfModel read = TgfSnapshot.read(ByteBuffer.wrap(toBytes(tgfModel)));
+        assertEquals(tgfModel, read);
+        assertTrue(read.isDeduplicatingEdges());
+        assertEquals(2, read.multiplicity(0));
+        assertEquals(1, read.multiplicity(1));
+    }
+
+    @Test
+    public void testRead_not_a_snapshot() {
+        assertThrows(IOException.class, () -> TgfSnapshot.read(ByteBuffer.wrap("1 A\n#\n".getBytes())));
+    }
+
+    @Test
+    public void testRead_truncated() throws IOException {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("1", "A"))
+                .edge(new TgfEdge("1", "1", "self"))
+                .build();
+        final byte[] bytes = toBytes(tgfModel);
+        for (int len = 4; len < bytes.length; len++) {
+            final ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(bytes, len));
+            assertThrows(EOFException.class, () -> TgfSnapshot.read(truncated), "length " + len);
+        }
+    }
+
+    @Test
+    public void testReadVarInt() throws IOException {
+        assertEquals(0, TgfSnapshot.readVarInt(ByteBuffer.wrap(new byte[]{0})));
+        assertEquals(300, TgfSnapshot.readVarInt(ByteBuffer.wrap(new byte[]{(byte) 0xac, 0x02})));
+        assertEquals(Integer.MAX_VALUE, TgfSnapshot.readVarInt(ByteBuffer.wrap(new byte[]{-1, -1, -1, -1, 0x07})));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0x08, 0x0f, 0x70, 0x80, 0xff})
+    public void testReadVarInt_corrupt_5th_byte_X(int fifth) {
+        final ByteBuffer in = ByteBuffer.wrap(new byte[]{-1, -1, -1, -1, (byte) fifth, 0x01});
+        assertThrows(IOException.class, () -> TgfSnapshot.readVarInt(in));
+    }
+
+    static byte[] toBytes(TgfModel tgfModel) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        TgfSnapshot.write(tgfModel, baos);
+        return baos.toByteArray();
+    }
+}
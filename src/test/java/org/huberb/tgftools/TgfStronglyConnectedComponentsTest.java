@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfStronglyConnectedComponentsTest {
+
+    @Test
+    public void testOf_cycles() {
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("r", "root"))
+                .node(new TgfNode("a", "A"))
+                .node(new TgfNode("b", "B"))
+                .node(new TgfNode("c", "C"))
+                .node(new TgfNode("d", "D"))
+                .edge(new TgfEdge("r", "a", "x"))
+                .edge(new TgfEdge("a", "b", ""))
+                .edge(new TgfEdge("b", "c", ""))
+                .edge(new TgfEdge("c", "a", ""))
+                .edge(new TgfEdge("c", "d", "y"))
+                .edge(new TgfEdge("d", "d", ""))
+                .edge(new TgfEdge("b", "u", ""))
+                .build();
+        final TgfStronglyConnectedComponents instance = TgfStronglyConnectedComponents.of(tgfModel);
+
+        assertTrue(instance.hasCycles());
+        assertEquals(4, instance.componentCount());
+        assertEquals(instance.component("a"), instance.component("c"));
+        assertEquals("a", instance.representative("b"));
+        assertEquals("d", instance.representative("d"));
+        assertEquals(3, instance.componentSize(instance.component("b")));
+        assertEquals(-1, instance.component("unknown"));
+        assertNull(instance.representative("unknown"));
+
+        final TgfModel expected = new TgfModel.Builder()
+                .node(new TgfNode("r", "root"))
+                .node(new TgfNode("a", "A, B, C"))
+                .node(new TgfNode("d", "D"))
+                .edge(new TgfEdge("r", "a", "x"))
+                .edge(new TgfEdge("a", "d", "y"))
+                .edge(new TgfEdge("a", "u", ""))
+                .build();
+        final TgfModel condensed = instance.toTgfModel();
+        assertEquals(expected, condensed);
+        assertFalse(TgfStronglyConnectedComponents.of(condensed).hasCycles());
+    }
+
+    @Test
+    public void testOf_deep_chain() {
+        // a cycle through 200000 nodes would overflow a recursive search
+        final int n = 200000;
+        final TgfModel.Builder builder = new TgfModel.Builder();
+        for (int i = 0; i < n; i++) {
+            builder.node(new TgfNode(String.valueOf(i), "n" + i));
+        }
+        for (int i = 0; i < n; i++) {
+            builder.edge(new TgfEdge(String.valueOf(i), String.valueOf((i + 1) % n), ""));
+        }
+        final TgfStronglyConnectedComponents instance = TgfStronglyConnectedComponents.of(builder.build());
+
+        assertEquals(1, instance.componentCount());
+        assertEquals(n, instance.componentSize(0));
+        assertEquals(1, instance.toTgfModel().tgfNodeList.size());
+        assertEquals(0, instance.toTgfModel().tgfEdgeList.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf"})
+    public void testOf_acyclic(String resName) throws IOException {
+        final TgfModel tgfModel = new TgfParser().parse(Paths.get("./src/test/resources/", resName));
+        final TgfStronglyConnectedComponents instance = TgfStronglyConnectedComponents.of(tgfModel);
+
+        assertFalse(instance.hasCycles());
+        assertEquals(tgfModel, instance.toTgfModel());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.huberb.tgftools.TgfScanner.ByteBufferScanner;
+import org.huberb.tgftools.TgfScanner.CharArrayScanner;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfSymbolTableTest {
+
+    @Test
+    public void testIntern_chars() {
+        final CharArrayScanner scanner = new CharArrayScanner("compile test compile".toCharArray());
+        final TgfSymbolTable symbolTable = new TgfSymbolTable();
+        final String s1 = symbolTable.intern(scanner, 0, 7);
+        final String s2 = symbolTable.intern(scanner, 8, 12);
+        final String s3 = symbolTable.intern(scanner, 13, 20);
+        assertEquals("compile", s1);
+        assertEquals("test", s2);
+        assertSame(s1, s3);
+        assertEquals(2, symbolTable.size());
+    }
+
+    @Test
+    public void testIntern_utf8_bytes() {
+        final ByteBuffer bb = ByteBuffer.wrap("grün grün abc".getBytes(StandardCharsets.UTF_8));
+        final ByteBufferScanner scanner = new ByteBufferScanner(bb);
+        final TgfSymbolTable symbolTable = new TgfSymbolTable();
+        final String s1 = symbolTable.intern(scanner, 0, 5);
+        final String s2 = symbolTable.intern(scanner, 6, 11);
+        final String s3 = symbolTable.intern(scanner, 12, 15);
+        assertEquals("grün", s1);
+        assertSame(s1, s2);
+        assertSame(s3, symbolTable.intern("abc"));
+        assertEquals(2, symbolTable.size());
+    }
+
+    @Test
+    public void testIntern_parent() {
+        final TgfSymbolTable parent = new TgfSymbolTable();
+        final String a = parent.intern(new String("a"));
+        final TgfSymbolTable child1 = new TgfSymbolTable(parent);
+        final TgfSymbolTable child2 = new TgfSymbolTable(parent);
+        assertSame(a, child1.intern(new String("a")));
+        assertSame(a, child2.intern(new String("a")));
+        final String b1 = child1.intern(new String("b"));
+        final String b2 = child2.intern(new String("b"));
+        assertNotSame(b1, b2);
+        assertEquals(1, parent.size());
+        assertEquals(1, child1.size());
+    }
+
+    @Test
+    public void testIntern_grow() {
+        final TgfSymbolTable symbolTable = new TgfSymbolTable();
+        for (int i = 0; i < 10000; i++) {
+            symbolTable.intern(Integer.toString(i));
+        }
+        assertEquals(10000, symbolTable.size());
+        for (int i = 0; i < 10000; i++) {
+            final String s = Integer.toString(i);
+            assertSame(symbolTable.intern(s), symbolTable.intern(new String(s)));
+        }
+        assertEquals(10000, symbolTable.size());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 berni3.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.huberb.tgftools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import org.huberb.tgftools.TgfModel.TgfEdge;
+import org.huberb.tgftools.TgfModel.TgfNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author berni3
+ */
+public class TgfTransitiveReductionTest {
+
+    @Test
+    public void testOf_implied_edges() {
+        // c, and d are a cycle, a -> c, and a -> d are implied by a -> b -> d
+        final TgfModel tgfModel = new TgfModel.Builder()
+                .node(new TgfNode("a", "A"))
+                .node(new TgfNode("b", "B"))
+                .node(new TgfNode("c", "C"))
+                .node(new TgfNode("d", "D"))
+                .node(new TgfNode("e", "E"))
+                .edge(new TgfEdge("a", "b", ""))
+                .edge(new TgfEdge("a", "c", "implied"))
+                .edge(new TgfEdge("b", "d", ""))
+                .edge(new TgfEdge("c", "d", ""))
+                .edge(new TgfEdge("a", "d", "implied"))
+                .edge(new TgfEdge("d", "c", ""))
+                .edge(new TgfEdge("d", "e", ""))
+                .edge(new TgfEdge("c", "e", ""))
+                .build();
+        final TgfTransitiveReduction instance = TgfTransitiveReduction.of(tgfModel);
+
+        assertEquals(2, instance.redundantEdgeCount());
+        final TgfModel expected = new TgfModel.Builder()
+                .node(new TgfNode("a", "A"))
+                .node(new TgfNode("b", "B"))
+                .node(new TgfNode("c", "C"))
+                .node(new TgfNode("d", "D"))
+                .node(new TgfNode("e", "E"))
+                .edge(new TgfEdge("a", "b", ""))
+                .edge(new TgfEdge("b", "d", ""))
+                .edge(new TgfEdge("c", "d", ""))
+                .edge(new TgfEdge("d", "c", ""))
+                .edge(new TgfEdge("d", "e", ""))
+                .edge(new TgfEdge("c", "e", ""))
+                .build();
+        assertEquals(expected, instance.toTgfModel());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 1 << 23})
+    public void testOf_random_dag(int descendantWords) {
+        final int n = 300;
+        final Random random = new Random(20211001L);
+        final TgfModel.Builder builder = new TgfModel.Builder();
+        for (int i = 0; i < n; i++) {
+            builder.node(new TgfNode(String.valueOf(i), "n" + i));
+        }
+        for (int e = 0; e < 1200; e++) {
+            final int from = random.nextInt(n - 1);
+            final int to = from + 1 + random.nextInt(Math.min(20, n - 1 - from));
+            builder.edge(new TgfEdge(String.valueOf(from), String.valueOf(to), ""));
+        }
+        final TgfModel tgfModel = builder.build();
+        final TgfTransitiveReduction instance = TgfTransitiveReduction.of(tgfModel, descendantWords);
+
+        // an edge is redundant if its target is a descendant of another successor
+        final TgfReachability tgfReachability = TgfReachability.of(tgfModel);
+        for (int e = 0; e < tgfModel.tgfEdgeList.size(); e++) {
+            final TgfEdge tgfEdge = tgfModel.tgfEdgeList.get(e);
+            boolean expected = false;
+            for (TgfEdge other : tgfModel.outgoing(tgfEdge.from)) {
+                expected |= !other.to.equals(tgfEdge.to)
+                        && tgfReachability.descendants(other.to).contains(tgfEdge.to);
+            }
+            assertEquals(expected, instance.isRedundant(e), tgfEdge.toString());
+        }
+        assertEquals(tgfReachability.descendants("0"),
+                TgfReachability.of(instance.toTgfModel()).descendants("0"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tgftools-dependency-tree.tgf", "evaluationtable-dependency-tree.tgf"})
+    public void testOf_tree(String resName) throws IOException {
+        final TgfModel tgfModel = new TgfParser().parse(Paths.get("./src/test/resources/", resName));
+        final TgfTransitiveReduction instance = TgfTransitiveReduction.of(tgfModel);
+
+        assertEquals(0, instance.redundantEdgeCount());
+        assertEquals(tgfModel, instance.toTgfModel());
+    }
+}
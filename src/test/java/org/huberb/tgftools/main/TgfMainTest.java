@@ -6,16 +6,21 @@
 package org.huberb.tgftools.main;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import picocli.CommandLine;
@@ -100,6 +105,209 @@ public class TgfMainTest {
         }
     }
 
+    @Test
+    public void testCommandLine_convert_csv_multi_document() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final List<String> commandline = Arrays.asList(
+                "--convert-csv",
+                "--multi-document",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath())
+        );
+
+        final int exitCode = cmd.execute(commandline.toArray(new String[0]));
+        assertEquals(0, exitCode);
+        {
+            final String swOutAsString = swOut.toString();
+            final String m = String.format("commandline %s, stdout: %s", commandline, swOutAsString);
+            assertTrue(swOutAsString.contains("\"node\",\"0:"), m);
+            assertTrue(swOutAsString.contains("\"edge\",\"0:"), m);
+        }
+    }
+
+    @Test
+    public void testCommandLine_convert_csv_deduplicate_edges() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final List<String> commandline = Arrays.asList(
+                "--convert-csv",
+                "--deduplicate-edges",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath())
+        );
+
+        final int exitCode = cmd.execute(commandline.toArray(new String[0]));
+        assertEquals(0, exitCode);
+        {
+            final String swOutAsString = swOut.toString();
+            final String m = String.format("commandline %s, stdout: %s", commandline, swOutAsString);
+            assertTrue(swOutAsString.contains("\"label\",\"count\""), m);
+            assertTrue(swOutAsString.contains("\"compile\",\"1\""), m);
+        }
+    }
+
+    @Test
+    public void testCommandLine_convert_csv_maven_scope() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final List<String> commandline = Arrays.asList(
+                "--convert-csv",
+                "--maven-scope=compile,runtime",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath())
+        );
+
+        final int exitCode = cmd.execute(commandline.toArray(new String[0]));
+        assertEquals(0, exitCode);
+        {
+            final String swOutAsString = swOut.toString();
+            final String m = String.format("commandline %s, stdout: %s", commandline, swOutAsString);
+            assertTrue(swOutAsString.contains(":compile\""), m);
+            assertFalse(swOutAsString.contains(":test\""), m);
+        }
+    }
+
+    @Test
+    public void testCommandLine_convert_csv_share_subtrees() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final List<String> commandline = Arrays.asList(
+                "--convert-csv",
+                "--multi-document",
+                "--share-subtrees",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath())
+        );
+
+        final int exitCode = cmd.execute(commandline.toArray(new String[0]));
+        assertEquals(0, exitCode);
+        {
+            final String swOutAsString = swOut.toString();
+            final String m = String.format("commandline %s, stdout: %s", commandline, swOutAsString);
+            assertTrue(swOutAsString.contains("\"node\",\"0:"), m);
+            assertTrue(swOutAsString.contains("\"edge\",\"0:"), m);
+        }
+    }
+
+    @Test
+    public void testCommandLine_convert_puml_mindmap_tree_budget() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final List<String> commandline = Arrays.asList(
+                "--convert-puml-mindmap",
+                "--tree-budget=1",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath())
+        );
+
+        final int exitCode = cmd.execute(commandline.toArray(new String[0]));
+        assertEquals(0, exitCode);
+        {
+            final String swOutAsString = swOut.toString();
+            final String m = String.format("commandline %s, stdout: %s", commandline, swOutAsString);
+            assertTrue(swOutAsString.contains("* root"), m);
+            assertTrue(swOutAsString.contains("*** ..."), m);
+            assertTrue(!swOutAsString.contains("test"), m);
+        }
+    }
+
+    @Test
+    public void testCommandLine_convert_csv_condense_cycles(@TempDir Path tempDir) throws IOException {
+        final Path tgfInputPath = tempDir.resolve("cycle.tgf");
+        Files.write(tgfInputPath, Arrays.asList("1 A", "2 B", "3 C", "#", "1 2", "2 3", "3 2"));
+        final List<String> commandline = Arrays.asList(
+                "--convert-csv",
+                "--condense-cycles",
+                String.format("--file=%s", tgfInputPath)
+        );
+
+        final int exitCode = cmd.execute(commandline.toArray(new String[0]));
+        assertEquals(0, exitCode);
+        {
+            final String swOutAsString = swOut.toString();
+            final String m = String.format("commandline %s, stdout: %s", commandline, swOutAsString);
+            assertTrue(swOutAsString.contains("\"node\",\"2\",\"B, C\""), m);
+            assertTrue(swOutAsString.contains("\"edge\",\"1\",\"2\""), m);
+            assertFalse(swOutAsString.contains("\"edge\",\"2\",\"3\""), m);
+        }
+    }
+
+    @Test
+    public void testCommandLine_convert_csv_transitive_reduction(@TempDir Path tempDir) throws IOException {
+        final Path tgfInputPath = tempDir.resolve("implied.tgf");
+        Files.write(tgfInputPath, Arrays.asList("1 A", "2 B", "3 C", "#", "1 2", "2 3", "1 3"));
+        final List<String> commandline = Arrays.asList(
+                "--convert-csv",
+                "--transitive-reduction",
+                String.format("--file=%s", tgfInputPath)
+        );
+
+        final int exitCode = cmd.execute(commandline.toArray(new String[0]));
+        assertEquals(0, exitCode);
+        {
+            final String swOutAsString = swOut.toString();
+            final String m = String.format("commandline %s, stdout: %s", commandline, swOutAsString);
+            assertTrue(swOutAsString.contains("\"edge\",\"1\",\"2\""), m);
+            assertTrue(swOutAsString.contains("\"edge\",\"2\",\"3\""), m);
+            assertFalse(swOutAsString.contains("\"edge\",\"1\",\"3\""), m);
+        }
+    }
+
+    @Test
+    public void testCommandLine_query(@TempDir Path tempDir) throws IOException {
+        final Path tgfInputPath = tempDir.resolve("query.tgf");
+        Files.write(tgfInputPath, Arrays.asList("1 A", "2 B", "3 C", "#", "1 2", "2 3"));
+        {
+            final int exitCode = cmd.execute("query", "--descendants=2", String.format("--file=%s", tgfInputPath));
+            assertEquals(0, exitCode);
+            assertEquals("3 C", swOut.toString().trim());
+        }
+        {
+            final int exitCode = cmd.execute("query", "--path", "1", "3", String.format("--file=%s", tgfInputPath));
+            assertEquals(0, exitCode);
+            assertTrue(swOut.toString().endsWith(String.format("1 A%n2 B%n3 C%n")), swOut.toString());
+        }
+        {
+            final int exitCode = cmd.execute("query", "--path", "3", "1", String.format("--file=%s", tgfInputPath));
+            assertEquals(1, exitCode);
+            assertTrue(swErr.toString().contains("No path from 3 to 1"), swErr.toString());
+        }
+        {
+            final int exitCode = cmd.execute("query", "--ancestors=9", String.format("--file=%s", tgfInputPath));
+            assertEquals(1, exitCode);
+            assertTrue(swErr.toString().contains("Unknown node 9"), swErr.toString());
+        }
+    }
+
+    @Test
+    public void testCommandLine_multi_document_requires_file() {
+        final int exitCode = cmd.execute("--convert-csv", "--multi-document");
+        assertEquals(1, exitCode);
+        final String swErrAsString = swErr.toString();
+        assertTrue(swErrAsString.contains("--multi-document requires option --file"), swErrAsString);
+    }
+
+    @Test
+    public void testCommandLine_document_separator_requires_multi_document() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final int exitCode = cmd.execute("--convert-csv", "--document-separator=---",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath()));
+        assertEquals(1, exitCode);
+        final String swErrAsString = swErr.toString();
+        assertTrue(swErrAsString.contains("--document-separator requires option --multi-document"), swErrAsString);
+    }
+
+    @Test
+    public void testCommandLine_document_separator_invalid() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final int exitCode = cmd.execute("--convert-csv", "--multi-document", "--document-separator=#",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath()));
+        assertEquals(1, exitCode);
+        final String swErrAsString = swErr.toString();
+        assertTrue(swErrAsString.contains("Invalid document separator"), swErrAsString);
+    }
+
+    @Test
+    public void testCommandLine_multi_document_excludes_parallel() {
+        final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");
+        final int exitCode = cmd.execute("--convert-csv", "--multi-document", "--parallel",
+                String.format("--file=%s", tgfInputFile.getAbsolutePath()));
+        assertEquals(1, exitCode);
+        final String swErrAsString = swErr.toString();
+        assertTrue(swErrAsString.contains("--multi-document excludes option --parallel"), swErrAsString);
+    }
+
     @Test
     public void testCommandLine_convert_json() {
         final File tgfInputFile = createFileFrom.apply("tgftools-dependency-tree.tgf");